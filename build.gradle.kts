@@ -12,8 +12,6 @@ version = "1.0"
 val mvnVersion = "3.9.9"
 
 dependencies {
-    implementation("com.google.code.gson:gson:2.12.1")
-
     compileOnly("org.apache.maven:maven-core:$mvnVersion")
     compileOnly("org.apache.maven:maven-plugin-api:$mvnVersion")
     compileOnly("org.apache.maven.plugin-tools:maven-plugin-annotations:3.15.1")
@@ -53,10 +51,49 @@ testing.suites.named<JvmTestSuite>("test") {
     useJUnitJupiter()
     dependencies {
         implementation(gradleTestKit())
+        implementation("com.google.code.gson:gson:2.12.1")
         implementation("org.assertj:assertj-core:3.27.3")
     }
 }
 
+// Not part of 'check' - run explicitly with './gradlew scaleTest', CI runs it with a 256 MB artifact
+@Suppress("UnstableApiUsage")
+testing.suites.register<JvmTestSuite>("scaleTest") {
+    useJUnitJupiter()
+    dependencies {
+        implementation(project())
+        implementation("org.apache.maven:maven-core:$mvnVersion")
+        implementation("org.assertj:assertj-core:3.27.3")
+    }
+    targets.all {
+        testTask.configure {
+            // a constrained heap proves that nothing is read into memory as a whole
+            maxHeapSize = "64m"
+            systemProperty("gmm.scale.artifactSizeMb", providers.gradleProperty("gmm.scale.artifactSizeMb").getOrElse("1024"))
+            shouldRunAfter(tasks.test)
+        }
+    }
+}
+
+// Not part of 'check' - run explicitly with './gradlew benchmark'
+@Suppress("UnstableApiUsage")
+testing.suites.register<JvmTestSuite>("benchmark") {
+    useJUnitJupiter()
+    dependencies {
+        implementation(gradleTestKit())
+        implementation("org.assertj:assertj-core:3.27.3")
+    }
+    targets.all {
+        testTask.configure {
+            listOf("gmm.benchmark.modules", "gmm.benchmark.iterations").forEach { property ->
+                providers.gradleProperty(property).orNull?.let { systemProperty(property, it) }
+            }
+            testLogging.showStandardStreams = true
+            outputs.upToDateWhen { false }
+        }
+    }
+}
+
 publishing {
     publications.create<MavenPublication>("mavenPlugin") {
         from(components["java"])
@@ -0,0 +1,316 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm.test;
+
+import com.sun.net.httpserver.HttpServer;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.writeString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares Gradle dependency resolution of the same synthetic dependency graph, published once with POM metadata only
+ * and once with additional Gradle Module Metadata generated by this plugin.
+ * <p>
+ * The graph is published to a local folder which is served by an HTTP server on the loopback interface, so that
+ * Gradle's dependency cache is used as for any remote repository, while no network access is needed.
+ * A 'cold' resolution forces Gradle to fetch all metadata again (--refresh-dependencies), a 'warm' resolution
+ * is served from the dependency cache.
+ * Resolution time is measured inside the consumer build to exclude daemon startup and configuration time.
+ * <p>
+ * The projects in src/test/resources are not used as additional cases: they all share the coordinates
+ * 'org.testing:example:1.0' and depend on modules from Maven Central (Guava, JUnit, SLF4J, ...), whose metadata
+ * would have to be downloaded during the measurement. That would make the benchmark depend on network access and
+ * would mostly measure Central's latency for a single module, instead of the metadata published by this plugin.
+ */
+class GMMResolutionBenchmark {
+
+    private static final int MODULES = Integer.getInteger("gmm.benchmark.modules", 100);
+    private static final int ITERATIONS = Integer.getInteger("gmm.benchmark.iterations", 10);
+
+    private static final String GROUP = "org.gradlex.benchmark";
+    private static final String RESOLVED_MARKER = "RESOLVED ";
+
+    private enum Mode {
+        POM_ONLY("pom-only"),
+        POM_AND_GMM("pom-and-gmm");
+
+        private final String path;
+
+        Mode(String path) {
+            this.path = path;
+        }
+    }
+
+    @TempDir
+    File testFolder;
+
+    HttpServer server;
+    AtomicInteger requestCount = new AtomicInteger();
+
+    @BeforeAll
+    static void setupSpec() {
+        exec(List.of("./gradlew", "publishToMavenLocal"), null);
+    }
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            Path file = new File(testFolder, "repositories" + exchange.getRequestURI().getPath()).toPath();
+            if (Files.isRegularFile(file)) {
+                boolean head = "HEAD".equals(exchange.getRequestMethod());
+                exchange.sendResponseHeaders(200, head ? -1 : Files.size(file));
+                if (!head) {
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        Files.copy(file, out);
+                    }
+                }
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void cleanup() {
+        server.stop(0);
+    }
+
+    @Test
+    void resolution_of_synthetic_deep_graph() throws IOException {
+        List<String> report = new ArrayList<>();
+        int resolvedFiles = -1;
+        for (Mode mode : Mode.values()) {
+            publishSyntheticGraph(mode);
+            File consumer = consumerBuild(mode);
+
+            List<Long> cold = new ArrayList<>();
+            List<Long> warm = new ArrayList<>();
+            int coldRequests = 0;
+            int warmRequests = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                requestCount.set(0);
+                cold.add(resolve(consumer, true));
+                coldRequests = requestCount.get();
+
+                requestCount.set(0);
+                warm.add(resolve(consumer, false));
+                warmRequests = requestCount.get();
+            }
+
+            int files = resolvedFileCount(consumer);
+            if (resolvedFiles != -1) {
+                assertThat(files).isEqualTo(resolvedFiles);
+            }
+            resolvedFiles = files;
+
+            report.add(String.format("%-12s cold: %s (%d requests)", mode.path, summary(cold), coldRequests));
+            report.add(String.format("%-12s warm: %s (%d requests)", mode.path, summary(warm), warmRequests));
+        }
+
+        System.out.println("Resolution of " + MODULES + " modules (" + resolvedFiles + " files), "
+                + ITERATIONS + " iterations, warm-up iteration excluded:");
+        report.forEach(System.out::println);
+    }
+
+    private void publishSyntheticGraph(Mode mode) throws IOException {
+        File reactor = new File(testFolder, "producer-" + mode.path);
+        File repository = new File(testFolder, "repositories/" + mode.path);
+        createDirectories(repository.toPath());
+
+        StringBuilder modules = new StringBuilder();
+        for (int i = 0; i < MODULES; i++) {
+            modules.append("<module>module").append(i).append("</module>\n");
+            File module = new File(reactor, "module" + i);
+            createDirectories(module.toPath());
+            writeString(new File(module, "pom.xml").toPath(), modulePom(i));
+        }
+        String gmmPlugin = mode == Mode.POM_ONLY ? "" : """
+                  <plugin>
+                    <groupId>org.gradlex</groupId>
+                    <artifactId>gradle-module-metadata-maven-plugin</artifactId>
+                    <executions>
+                      <execution>
+                        <goals>
+                          <goal>gmm</goal>
+                        </goals>
+                      </execution>
+                    </executions>
+                  </plugin>
+                """;
+        writeString(new File(reactor, "pom.xml").toPath(), """
+            <project>
+              <modelVersion>4.0.0</modelVersion>
+              <groupId>$group</groupId>
+              <artifactId>parent</artifactId>
+              <version>1.0</version>
+              <packaging>pom</packaging>
+              <modules>
+                $modules
+              </modules>
+              <build>
+                <plugins>
+                  $gmmPlugin
+                </plugins>
+              </build>
+            </project>
+            """.replace("$group", GROUP).replace("$modules", modules).replace("$gmmPlugin", gmmPlugin));
+
+        exec(List.of("mvn", "-B", "-q", "deploy", "-Dgpg.skip", "-Dmaven.install.skip",
+                "-DaltDeploymentRepository=benchmark::" + repository.toURI()), reactor);
+    }
+
+    private static String modulePom(int i) {
+        // every module has a compile dependency to the next and a runtime dependency to the one after
+        StringBuilder dependencies = new StringBuilder();
+        if (i + 1 < MODULES) {
+            dependencies.append(dependency(i + 1, "compile"));
+        }
+        if (i + 2 < MODULES) {
+            dependencies.append(dependency(i + 2, "runtime"));
+        }
+        return """
+            <project>
+              <modelVersion>4.0.0</modelVersion>
+              <parent>
+                <groupId>$group</groupId>
+                <artifactId>parent</artifactId>
+                <version>1.0</version>
+              </parent>
+              <artifactId>module$i</artifactId>
+              <dependencies>
+                $dependencies
+              </dependencies>
+            </project>
+            """.replace("$group", GROUP).replace("$i", String.valueOf(i)).replace("$dependencies", dependencies);
+    }
+
+    private static String dependency(int i, String scope) {
+        return """
+            <dependency>
+              <groupId>$group</groupId>
+              <artifactId>module$i</artifactId>
+              <version>1.0</version>
+              <scope>$scope</scope>
+            </dependency>
+            """.replace("$group", GROUP).replace("$i", String.valueOf(i)).replace("$scope", scope);
+    }
+
+    private File consumerBuild(Mode mode) throws IOException {
+        File consumer = new File(testFolder, "consumer-" + mode.path);
+        createDirectories(consumer.toPath());
+        writeString(new File(consumer, "settings.gradle").toPath(), "rootProject.name = 'consumer'");
+        writeString(new File(consumer, "build.gradle").toPath(), """
+            plugins {
+                id 'java-library'
+            }
+            repositories {
+                maven {
+                    url = 'http://localhost:$port/$path'
+                    allowInsecureProtocol = true
+                }
+            }
+            dependencies {
+                implementation('$group:module0:1.0')
+            }
+            tasks.register('resolve') {
+                doLast {
+                    long start = System.nanoTime()
+                    int count = configurations.runtimeClasspath.files.size()
+                    println("$marker${(System.nanoTime() - start) / 1000000} $count")
+                }
+            }
+            """.replace("$port", String.valueOf(server.getAddress().getPort()))
+                .replace("$path", mode.path)
+                .replace("$group", GROUP)
+                .replace("$marker", RESOLVED_MARKER));
+        return consumer;
+    }
+
+    private long resolve(File consumer, boolean cold) {
+        return Long.parseLong(resolveOutput(consumer, cold)[0]);
+    }
+
+    private int resolvedFileCount(File consumer) {
+        return Integer.parseInt(resolveOutput(consumer, false)[1]);
+    }
+
+    private String[] resolveOutput(File consumer, boolean cold) {
+        List<String> arguments = new ArrayList<>(List.of("resolve", "-q"));
+        if (cold) {
+            arguments.add("--refresh-dependencies");
+        }
+        BuildResult result = GradleRunner.create()
+                .withProjectDir(consumer)
+                .withArguments(arguments)
+                .build();
+        return result.getOutput().lines()
+                .filter(line -> line.startsWith(RESOLVED_MARKER))
+                .findFirst()
+                .orElseThrow()
+                .substring(RESOLVED_MARKER.length())
+                .split(" ");
+    }
+
+    private static String summary(List<Long> timesMs) {
+        // the first iteration warms up the Gradle daemon and is not representative
+        List<Long> measured = new ArrayList<>(timesMs.size() > 1 ? timesMs.subList(1, timesMs.size()) : timesMs);
+        Collections.sort(measured);
+        double average = measured.stream().mapToLong(Long::longValue).average().orElse(0);
+        return String.format("min %4d ms, median %4d ms, avg %7.1f ms",
+                measured.get(0), measured.get(measured.size() / 2), average);
+    }
+
+    private static void exec(List<String> command, File workDir) {
+        try {
+            Process proc = new ProcessBuilder(command).directory(workDir).redirectErrorStream(true).start();
+            BufferedReader stdInput = new BufferedReader(new InputStreamReader(proc.getInputStream()));
+            String s;
+            while ((s = stdInput.readLine()) != null) {
+                System.out.println(s);
+            }
+            assertThat(proc.waitFor()).isEqualTo(0);
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -17,23 +17,44 @@
 package org.gradlex.maven.gmm;
 
 import org.apache.maven.Maven;
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.DefaultDependencyResolutionRequest;
+import org.apache.maven.project.DependencyResolutionException;
+import org.apache.maven.project.DependencyResolutionResult;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.project.ProjectDependenciesResolver;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.filter.ScopeDependencyFilter;
+import org.gradlex.maven.gmm.analysis.ApiDependencies;
+import org.gradlex.maven.gmm.analysis.ApiDependencyAnalyzer;
 
 import javax.inject.Inject;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * Goal that generates Gradle Module Metadata.
@@ -41,9 +62,15 @@ import java.util.Properties;
 @Mojo(name = "gmm", defaultPhase = LifecyclePhase.PACKAGE)
 public class GradleModuleMetadataMojo extends AbstractMojo {
 
+    // Maven's version does not change while the plugin's class loader lives (which can be many builds in mvnd)
+    private static volatile String mavenVersion;
+
     @Parameter(defaultValue = "${project}", readonly = true)
     protected MavenProject project;
 
+    @Parameter(defaultValue = "${session}", readonly = true)
+    protected MavenSession session;
+
     @Parameter
     protected List<Dependency> platformDependencies;
 
@@ -56,24 +83,88 @@ public class GradleModuleMetadataMojo extends AbstractMojo {
     @Parameter
     protected List<Dependency> compileOnlyApiDependencies;
 
+    @Parameter
+    protected List<NativeVariant> nativeVariants;
+
+    @Parameter
+    protected ShadedVariant shadedVariant;
+
+    @Parameter(defaultValue = "false")
+    protected boolean publishPlatform;
+
+    @Parameter(defaultValue = "false")
+    protected boolean alignWithReactor;
+
+    @Parameter(defaultValue = "false")
+    protected boolean analyzeApiDependencies;
+
+    @Parameter(defaultValue = "false")
+    protected boolean preferResolvedVersions;
+
+    @Parameter(defaultValue = "false")
+    protected boolean strictlyResolvedVersions;
+
+    @Parameter(property = "gmm.explain", defaultValue = "false")
+    protected boolean explain;
+
     @Parameter(defaultValue = "${project.build.directory}/publications/maven")
     private File outputDirectory;
 
     @Inject
     private MavenProjectHelper projectHelper;
 
+    @Inject
+    private ProjectDependenciesResolver dependenciesResolver;
+
+    private Collection<Artifact> resolvedArtifacts;
+
     public void execute() throws MojoExecutionException {
-        if ("pom".equals(project.getPackaging())) {
-            // publishing GMM for platforms is currently not supported, the BOM can be used as platform directly
+        boolean isRelocated = GradleModuleMetadataWriter.isRelocated(project);
+        boolean isBom = "pom".equals(project.getPackaging());
+        if (isBom && !publishPlatform && !isRelocated) {
+            // by default, no GMM is published for BOMs as the BOM can be used as platform directly
             return;
         }
-        if (!project.getArtifact().getFile().isFile()) {
+        File artifactFile = project.getArtifact().getFile();
+        if (!isBom && !isRelocated && !explain && (artifactFile == null || !artifactFile.isFile())) {
             getLog().info("Skipping Gradle Metadata generation as the project artifact cannot be published: "
-                    + project.getArtifact().getFile());
+                    + artifactFile);
+            return;
+        }
+
+        if (!explain) {
+            addMarkerToPomIfNotPresent();
+        }
+
+        File moduleFile = writeModuleFile();
+
+        if (explain) {
+            getLog().info("Gradle Module Metadata without checksums written to " + moduleFile + " (not attached)");
             return;
         }
+        projectHelper.attachArtifact(project, "module", moduleFile);
+    }
+
+    protected File writeModuleFile() throws MojoExecutionException {
+        if (nativeVariants != null) {
+            for (NativeVariant nativeVariant : nativeVariants) {
+                checkConfigured(nativeVariant.getClassifier(), "classifier", "nativeVariant");
+                checkConfigured(nativeVariant.getOperatingSystem(), "operatingSystem", "nativeVariant");
+                checkConfigured(nativeVariant.getArchitecture(), "architecture", "nativeVariant");
+                if (!explain && GradleModuleMetadataWriter.findAttachedArtifact(project, nativeVariant.getClassifier()) == null) {
+                    throw new MojoExecutionException("No attached artifact with classifier '"
+                            + nativeVariant.getClassifier() + "' for native variant");
+                }
+            }
+        }
+        if (shadedVariant != null) {
+            checkConfigured(shadedVariant.getClassifier(), "classifier", "shadedVariant");
+            if (!explain && GradleModuleMetadataWriter.findAttachedArtifact(project, shadedVariant.getClassifier()) == null) {
+                throw new MojoExecutionException("No attached artifact with classifier '"
+                        + shadedVariant.getClassifier() + "' for shaded variant");
+            }
+        }
 
-        addMarkerToPomIfNotPresent();
         if (!outputDirectory.exists()) {
             //noinspection ResultOfMethodCallIgnored
             outputDirectory.mkdirs();
@@ -81,19 +172,99 @@ public class GradleModuleMetadataMojo extends AbstractMojo {
 
         File moduleFile = new File(outputDirectory, "module.json");
 
-        try (FileWriter fileWriter = new FileWriter(moduleFile)) {
-            GradleModuleMetadataWriter.generateTo(
-                    project, getMavenVersion(),
-                    platformDependencies,
-                    capabilities,
-                    removedDependencies,
-                    compileOnlyApiDependencies,
-                    fileWriter);
+        GradleModuleMetadataOptions options = new GradleModuleMetadataOptions();
+        options.setPlatformDependencies(platformDependencies);
+        options.setCapabilities(capabilities);
+        options.setRemovedDependencies(removedDependencies);
+        options.setCompileOnlyApiDependencies(compileOnlyApiDependencies);
+        options.setRuntimeOnlyDependencies(analyzeApiDependencies ? runtimeOnlyDependencies() : null);
+        options.setNativeVariants(nativeVariants);
+        options.setShadedVariant(shadedVariant);
+        if (alignWithReactor) {
+            options.setAlignmentConstraints(ReactorAlignment.constraints(session));
+        }
+        if (preferResolvedVersions || strictlyResolvedVersions) {
+            options.setResolvedVersions(new ResolvedVersions(resolvedArtifacts(), strictlyResolvedVersions));
+        }
+        if (explain) {
+            options.setExplain(getLog());
+        }
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(moduleFile))) {
+            GradleModuleMetadataWriter.generateTo(project, getMavenVersion(), options, out);
         } catch (IOException e) {
             throw new MojoExecutionException("Error creating file " + moduleFile, e);
         }
+        return moduleFile;
+    }
 
-        projectHelper.attachArtifact(project, "module", moduleFile);
+    /**
+     * The dependencies of the project, resolved on first use. Only some options need them, so the goal does not
+     * require dependency resolution in general - which would fail in a reactor for dependencies on modules that were
+     * not built yet. The API analysis only needs the compile dependencies, the resolved versions also the runtime ones.
+     */
+    private Collection<Artifact> resolvedArtifacts() throws MojoExecutionException {
+        if (resolvedArtifacts == null) {
+            DependencyFilter scopes = new ScopeDependencyFilter(preferResolvedVersions || strictlyResolvedVersions
+                    ? Arrays.asList(JavaScopes.COMPILE, JavaScopes.RUNTIME)
+                    : Collections.singletonList(JavaScopes.COMPILE), null);
+            DefaultDependencyResolutionRequest request = new DefaultDependencyResolutionRequest(project, session.getRepositorySession());
+            request.setResolutionFilter(scopes);
+            DependencyResolutionResult result;
+            try {
+                result = dependenciesResolver.resolve(request);
+            } catch (DependencyResolutionException e) {
+                throw new MojoExecutionException("Unable to resolve dependencies of " + project.getId(), e);
+            }
+            Set<Artifact> artifacts = new LinkedHashSet<>();
+            RepositoryUtils.toArtifacts(artifacts, result.getDependencyGraph().getChildren(),
+                    Collections.singletonList(project.getArtifact().getId()), scopes);
+            resolvedArtifacts = artifacts;
+        }
+        return resolvedArtifacts;
+    }
+
+    private static void checkConfigured(String value, String parameter, String element) throws MojoExecutionException {
+        if (value == null || value.trim().isEmpty()) {
+            throw new MojoExecutionException("Missing '" + parameter + "' in <" + element + "> configuration");
+        }
+    }
+
+    private List<Dependency> runtimeOnlyDependencies() throws MojoExecutionException {
+        if ("pom".equals(project.getPackaging()) || GradleModuleMetadataWriter.isRelocated(project)) {
+            return null;
+        }
+        File artifactFile = project.getArtifact().getFile();
+        if (artifactFile == null || !artifactFile.isFile()) {
+            getLog().warn("Skipping API dependency analysis as the project artifact does not exist: " + artifactFile);
+            return null;
+        }
+
+        ApiDependencies apiDependencies;
+        try {
+            apiDependencies = ApiDependencyAnalyzer.analyze(project, resolvedArtifacts());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error analyzing API dependencies of " + artifactFile, e);
+        }
+
+        getLog().info("API dependencies of " + artifactFile.getName() + ":");
+        for (Map.Entry<Dependency, String> entry : apiDependencies.getApi().entrySet()) {
+            logApiDependency("api", entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Dependency, String> entry : apiDependencies.getRuntimeOnly().entrySet()) {
+            String reason = entry.getValue();
+            if (GradleModuleMetadataWriter.contains(removedDependencies, entry.getKey())) {
+                reason += ", but listed in removedDependencies";
+            } else if (GradleModuleMetadataWriter.contains(compileOnlyApiDependencies, entry.getKey())) {
+                reason += ", but listed in compileOnlyApiDependencies";
+            }
+            logApiDependency("runtime only", entry.getKey(), reason);
+        }
+        return new ArrayList<>(apiDependencies.getRuntimeOnly().keySet());
+    }
+
+    private void logApiDependency(String variant, Dependency dependency, String reason) {
+        getLog().info(String.format("  %-12s %s:%s (%s)", variant, dependency.getGroupId(), dependency.getArtifactId(), reason));
     }
 
     private void addMarkerToPomIfNotPresent() {
@@ -111,6 +282,13 @@ public class GradleModuleMetadataMojo extends AbstractMojo {
     }
 
     private static String getMavenVersion() throws MojoExecutionException {
+        if (mavenVersion == null) {
+            mavenVersion = readMavenVersion();
+        }
+        return mavenVersion;
+    }
+
+    private static String readMavenVersion() throws MojoExecutionException {
         try (InputStream resource = Maven.class.getClassLoader().getResourceAsStream("org/apache/maven/messages/build.properties")) {
             if (resource == null) {
                 throw new MojoExecutionException("Unable to determine Maven version.");
@@ -0,0 +1,136 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.List;
+
+/**
+ * What {@link GradleModuleMetadataWriter} publishes in addition to the information in the POM.
+ * All options are optional, an option that is not set (null) is not used.
+ */
+public class GradleModuleMetadataOptions {
+    private List<Dependency> platformDependencies;
+    private List<Capability> capabilities;
+    private List<Dependency> removedDependencies;
+    private List<Dependency> compileOnlyApiDependencies;
+    private List<Dependency> runtimeOnlyDependencies;
+    private List<NativeVariant> nativeVariants;
+    private ShadedVariant shadedVariant;
+    private List<Dependency> alignmentConstraints;
+    private ResolvedVersions resolvedVersions;
+    private Log explain;
+
+    public List<Dependency> getPlatformDependencies() {
+        return platformDependencies;
+    }
+
+    public void setPlatformDependencies(List<Dependency> platformDependencies) {
+        this.platformDependencies = platformDependencies;
+    }
+
+    public List<Capability> getCapabilities() {
+        return capabilities;
+    }
+
+    public void setCapabilities(List<Capability> capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    public List<Dependency> getRemovedDependencies() {
+        return removedDependencies;
+    }
+
+    public void setRemovedDependencies(List<Dependency> removedDependencies) {
+        this.removedDependencies = removedDependencies;
+    }
+
+    public List<Dependency> getCompileOnlyApiDependencies() {
+        return compileOnlyApiDependencies;
+    }
+
+    public void setCompileOnlyApiDependencies(List<Dependency> compileOnlyApiDependencies) {
+        this.compileOnlyApiDependencies = compileOnlyApiDependencies;
+    }
+
+    public List<Dependency> getRuntimeOnlyDependencies() {
+        return runtimeOnlyDependencies;
+    }
+
+    /**
+     * Compile dependencies that are not part of the API and are therefore only added to the runtime variant.
+     */
+    public void setRuntimeOnlyDependencies(List<Dependency> runtimeOnlyDependencies) {
+        this.runtimeOnlyDependencies = runtimeOnlyDependencies;
+    }
+
+    public List<NativeVariant> getNativeVariants() {
+        return nativeVariants;
+    }
+
+    public void setNativeVariants(List<NativeVariant> nativeVariants) {
+        this.nativeVariants = nativeVariants;
+    }
+
+    public ShadedVariant getShadedVariant() {
+        return shadedVariant;
+    }
+
+    /**
+     * An attached artifact with bundled dependencies that is published as additional variants with their own
+     * capability.
+     */
+    public void setShadedVariant(ShadedVariant shadedVariant) {
+        this.shadedVariant = shadedVariant;
+    }
+
+    public List<Dependency> getAlignmentConstraints() {
+        return alignmentConstraints;
+    }
+
+    /**
+     * Dependency constraints added to all variants, e.g. on the other modules of the reactor.
+     */
+    public void setAlignmentConstraints(List<Dependency> alignmentConstraints) {
+        this.alignmentConstraints = alignmentConstraints;
+    }
+
+    public ResolvedVersions getResolvedVersions() {
+        return resolvedVersions;
+    }
+
+    /**
+     * The versions Maven selected, published for dependencies declared with a version range.
+     */
+    public void setResolvedVersions(ResolvedVersions resolvedVersions) {
+        this.resolvedVersions = resolvedVersions;
+    }
+
+    public Log getExplain() {
+        return explain;
+    }
+
+    /**
+     * If set, the reason for including or excluding each dependency is logged to it and the checksums of artifacts
+     * are omitted - the result is then only meant for inspection.
+     */
+    public void setExplain(Log explain) {
+        this.explain = explain;
+    }
+}
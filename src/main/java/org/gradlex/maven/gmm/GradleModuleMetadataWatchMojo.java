@@ -0,0 +1,252 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Goal that keeps the Gradle Module Metadata in the local repository in sync while the project's artifacts are
+ * rebuilt. Whenever the project artifact or an attached artifact changes, the module.json is regenerated and copied
+ * to the local repository together with the changed artifacts. Only changed artifacts are rehashed and the
+ * dependency information is taken from the POM as it was when the goal was started.
+ * <p>
+ * Run it after the project was installed once (e.g. 'mvn install gradle-module-metadata:watch') and stop it with Ctrl+C.
+ * Directories deleted by 'mvn clean' are watched again once they are recreated. If an update fails, e.g. because an
+ * artifact is rebuilt at the same time, the error is logged and the update is retried with the next change.
+ */
+@Mojo(name = "watch", requiresDirectInvocation = true)
+public class GradleModuleMetadataWatchMojo extends GradleModuleMetadataMojo {
+
+    /**
+     * Milliseconds without further changes before the metadata is regenerated, as artifacts are written in many steps.
+     */
+    @Parameter(property = "gmm.watch.quietPeriod", defaultValue = "500")
+    private long quietPeriod;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if ("pom".equals(project.getPackaging())) {
+            getLog().info("Nothing to watch for a project with 'pom' packaging");
+            return;
+        }
+
+        Map<Path, Artifact> watchedArtifacts = watchedArtifacts();
+        update(watchedArtifacts.values());
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            Set<Path> directories = new HashSet<>();
+            for (Path file : watchedArtifacts.keySet()) {
+                directories.add(file.getParent());
+            }
+            Map<Path, WatchKey> watchKeys = new HashMap<>();
+            register(watchService, directories, watchKeys);
+            getLog().info("Watching " + watchedArtifacts.size() + " artifact(s) of " + project.getId()
+                    + " - stop with Ctrl+C");
+
+            // artifacts that changed since the last successful update
+            Set<Artifact> changed = new HashSet<>();
+            //noinspection InfiniteLoopStatement
+            while (true) {
+                boolean reregister = false;
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    boolean valid = collectChanges(key, watchedArtifacts, changed);
+                    // a deleted directory, or a change in an ancestor that is watched until the directory is recreated
+                    reregister |= !valid || !directories.contains((Path) key.watchable());
+                    key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS);
+                }
+                if (reregister) {
+                    for (Path directory : register(watchService, directories, watchKeys)) {
+                        // the artifacts may have been written before the recreated directory was registered
+                        for (Map.Entry<Path, Artifact> watched : watchedArtifacts.entrySet()) {
+                            if (watched.getKey().getParent().equals(directory)) {
+                                changed.add(watched.getValue());
+                            }
+                        }
+                    }
+                }
+                changed.removeIf(artifact -> !artifact.getFile().isFile());
+                if (!changed.isEmpty()) {
+                    try {
+                        update(changed);
+                        changed.clear();
+                    } catch (MojoExecutionException | RuntimeException e) {
+                        // e.g. an artifact that is still written or deleted again by a concurrent 'mvn clean package'
+                        getLog().warn("Unable to update " + project.getId() + ", retrying with the next change", e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error watching artifacts of " + project.getId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<Path, Artifact> watchedArtifacts() throws MojoExecutionException {
+        Artifact mainArtifact = project.getArtifact();
+        if (mainArtifact.getFile() == null) {
+            // the goal was invoked without building the project in the same Maven invocation
+            mainArtifact.setFile(new File(project.getBuild().getDirectory(),
+                    project.getBuild().getFinalName() + "." + mainArtifact.getArtifactHandler().getExtension()));
+        }
+        if (!mainArtifact.getFile().isFile()) {
+            throw new MojoExecutionException("Project artifact does not exist: " + mainArtifact.getFile());
+        }
+
+        List<Artifact> artifacts = new ArrayList<>();
+        artifacts.add(mainArtifact);
+        for (Artifact attached : project.getAttachedArtifacts()) {
+            if (attached.getFile() != null && !"module".equals(attached.getType())) {
+                artifacts.add(attached);
+            }
+        }
+
+        Map<Path, Artifact> result = new LinkedHashMap<>();
+        for (Artifact artifact : artifacts) {
+            result.put(artifact.getFile().toPath().toAbsolutePath().normalize(), artifact);
+        }
+        return result;
+    }
+
+    /**
+     * Registers the directories containing the watched artifacts. A directory that does not exist (e.g. after
+     * 'mvn clean') is replaced by its nearest existing ancestor until it is created again. Returns the directories
+     * that are registered now, but were not registered before.
+     */
+    private Set<Path> register(WatchService watchService, Set<Path> directories, Map<Path, WatchKey> watchKeys)
+            throws IOException, MojoExecutionException {
+        while (true) {
+            Set<Path> existing = new HashSet<>();
+            for (Path directory : directories) {
+                Path ancestor = directory;
+                while (ancestor != null && !Files.isDirectory(ancestor)) {
+                    ancestor = ancestor.getParent();
+                }
+                if (ancestor == null) {
+                    throw new MojoExecutionException("Unable to watch " + directory + ": none of its parents exists");
+                }
+                existing.add(ancestor);
+            }
+
+            Iterator<Map.Entry<Path, WatchKey>> registered = watchKeys.entrySet().iterator();
+            while (registered.hasNext()) {
+                Map.Entry<Path, WatchKey> entry = registered.next();
+                if (!existing.contains(entry.getKey()) || !entry.getValue().isValid()) {
+                    entry.getValue().cancel();
+                    registered.remove();
+                }
+            }
+
+            Set<Path> added = new HashSet<>();
+            try {
+                for (Path directory : existing) {
+                    if (!watchKeys.containsKey(directory)) {
+                        watchKeys.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY));
+                        if (directories.contains(directory)) {
+                            added.add(directory);
+                        } else {
+                            getLog().info("Waiting for the artifact directories to be recreated in " + directory);
+                        }
+                    }
+                }
+                return added;
+            } catch (NoSuchFileException e) {
+                // deleted since it was checked, look for its parents again
+            }
+        }
+    }
+
+    /**
+     * Adds the watched artifacts that changed according to the events of the given key and resets the key.
+     * Returns false if the directory of the key cannot be watched anymore, e.g. because it was deleted.
+     */
+    private static boolean collectChanges(WatchKey key, Map<Path, Artifact> watchedArtifacts, Set<Artifact> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                changed.addAll(watchedArtifacts.values());
+                continue;
+            }
+            Artifact artifact = watchedArtifacts.get(directory.resolve((Path) event.context()).toAbsolutePath().normalize());
+            if (artifact != null) {
+                changed.add(artifact);
+            }
+        }
+        return key.reset();
+    }
+
+    private void update(Iterable<Artifact> changedArtifacts) throws MojoExecutionException {
+        long start = System.nanoTime();
+        File moduleFile = writeModuleFile();
+
+        List<String> updated = new ArrayList<>();
+        try {
+            for (Artifact artifact : changedArtifacts) {
+                copyToLocalRepository(artifact.getFile(), artifact.getClassifier(), artifact.getArtifactHandler().getExtension());
+                updated.add(artifact.getFile().getName());
+            }
+            copyToLocalRepository(moduleFile, "", "module");
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error updating " + project.getId() + " in local repository", e);
+        }
+        getLog().info("Updated Gradle Module Metadata and " + updated + " in local repository ("
+                + (System.nanoTime() - start) / 1_000_000 + " ms)");
+    }
+
+    private void copyToLocalRepository(File file, String classifier, String extension) throws IOException {
+        RepositorySystemSession repositorySession = session.getRepositorySession();
+        DefaultArtifact artifact = new DefaultArtifact(project.getGroupId(), project.getArtifactId(),
+                classifier == null ? "" : classifier, extension, project.getVersion());
+        Path target = repositorySession.getLocalRepository().getBasedir().toPath()
+                .resolve(repositorySession.getLocalRepositoryManager().getPathForLocalArtifact(artifact));
+        if (!Files.isDirectory(target.getParent())) {
+            getLog().warn("Project not installed yet, run 'mvn install' once: " + target.getParent());
+        }
+        Files.createDirectories(target.getParent());
+        Files.copy(file.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
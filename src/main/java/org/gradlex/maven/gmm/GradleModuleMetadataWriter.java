@@ -16,20 +16,28 @@
 
 package org.gradlex.maven.gmm;
 
-import com.google.gson.stream.JsonWriter;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.DistributionManagement;
 import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.Relocation;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
-import org.gradlex.maven.gmm.checksums.HashUtil;
+import org.gradlex.maven.gmm.checksums.ChecksumCache;
+import org.gradlex.maven.gmm.checksums.Checksums;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 /**
@@ -40,47 +48,133 @@ public class GradleModuleMetadataWriter {
     private static final String FORMAT_VERSION = "1.1";
 
     private enum Variant {
-        API_ELEMENTS("apiElements", "java-api", Collections.singletonList("compile")),
-        RUNTIME_ELEMENTS("runtimeElements", "java-runtime", Arrays.asList("compile", "runtime"));
+        API_ELEMENTS("apiElements", "library", "external", "java-api", Collections.singletonList("compile")),
+        RUNTIME_ELEMENTS("runtimeElements", "library", "external", "java-runtime", Arrays.asList("compile", "runtime")),
+        PLATFORM_API_ELEMENTS("apiElements", "platform", null, "java-api", Collections.singletonList("compile")),
+        PLATFORM_RUNTIME_ELEMENTS("runtimeElements", "platform", null, "java-runtime", Arrays.asList("compile", "runtime")),
+        SHADED_API_ELEMENTS("shadedApiElements", "library", "shadowed", "java-api", Collections.singletonList("compile")),
+        SHADED_RUNTIME_ELEMENTS("shadedRuntimeElements", "library", "shadowed", "java-runtime", Arrays.asList("compile", "runtime"));
 
         private final String name;
+        private final String category;
+        private final String bundling;
         private final String usage;
         private final List<String> scopes;
 
-        Variant(String name, String usage, List<String> scopes) {
+        Variant(String name, String category, String bundling, String usage, List<String> scopes) {
             this.name = name;
+            this.category = category;
+            this.bundling = bundling;
             this.usage = usage;
             this.scopes = scopes;
         }
+
+        private boolean isPlatform() {
+            return "platform".equals(category);
+        }
+
+        private boolean isApi() {
+            return "java-api".equals(usage);
+        }
     }
 
-    public static void generateTo(MavenProject project, String mavenVersion,
-                                  List<Dependency> platformDependencies, List<Capability> capabilities,
-                                  List<Dependency> removedDependencies,
-                                  List<Dependency> compileOnlyApiDependencies,
-                                  Writer writer) throws IOException {
-        JsonWriter jsonWriter = new JsonWriter(writer);
-        jsonWriter.setHtmlSafe(false);
-        jsonWriter.setIndent("  ");
-        writeComponentWithVariants(project, mavenVersion, platformDependencies, capabilities, removedDependencies, compileOnlyApiDependencies, jsonWriter);
+    // Parts of the document that are the same for many modules are encoded only once,
+    // the numbers are the nesting depths at which they are written
+    private static final JsonWriter.Fragment FORMAT_VERSION_VALUE =
+            JsonWriter.fragment(1, jsonWriter -> jsonWriter.value(FORMAT_VERSION));
+    private static final JsonWriter.Fragment RELEASE_ATTRIBUTES =
+            JsonWriter.fragment(2, jsonWriter -> writeAttributeValues(Collections.singletonMap("org.gradle.status", "release"), jsonWriter));
+    private static final JsonWriter.Fragment INTEGRATION_ATTRIBUTES =
+            JsonWriter.fragment(2, jsonWriter -> writeAttributeValues(Collections.singletonMap("org.gradle.status", "integration"), jsonWriter));
+    private static final JsonWriter.Fragment PLATFORM_DEPENDENCY_ATTRIBUTES =
+            JsonWriter.fragment(5, jsonWriter -> writeAttributeValues(Collections.singletonMap("org.gradle.category", "platform"), jsonWriter));
+    private static final Map<Variant, JsonWriter.Fragment> VARIANT_ATTRIBUTES = new EnumMap<>(Variant.class);
+
+    static {
+        for (Variant variant : Variant.values()) {
+            VARIANT_ATTRIBUTES.put(variant, JsonWriter.fragment(3, jsonWriter -> writeAttributeValues(variantAttributes(variant), jsonWriter)));
+        }
+    }
+
+    /**
+     * Writes the Gradle Module Metadata of the given project.
+     */
+    public static void generateTo(MavenProject project, String mavenVersion, GradleModuleMetadataOptions options,
+                                  OutputStream out) throws IOException {
+        if (options.getExplain() == null) {
+            computeChecksumsInParallel(project, options.getNativeVariants(), options.getShadedVariant());
+        }
+        JsonWriter jsonWriter = new JsonWriter(out);
+        writeComponentWithVariants(project, mavenVersion, options, jsonWriter);
         jsonWriter.flush();
-        writer.append('\n');
+        out.write('\n');
+    }
+
+    /**
+     * Hash all files up front and concurrently, the results are then picked up from the cache while writing.
+     */
+    private static void computeChecksumsInParallel(MavenProject project, List<NativeVariant> nativeVariants,
+                                                   ShadedVariant shadedVariant) {
+        if (isNullOrEmpty(nativeVariants) && shadedVariant == null) {
+            return;
+        }
+        List<File> files = new ArrayList<>();
+        files.add(project.getArtifact().getFile());
+        if (nativeVariants != null) {
+            for (NativeVariant nativeVariant : nativeVariants) {
+                files.add(findAttachedArtifact(project, nativeVariant.getClassifier()).getFile());
+            }
+        }
+        if (shadedVariant != null) {
+            files.add(findAttachedArtifact(project, shadedVariant.getClassifier()).getFile());
+        }
+        files.parallelStream().forEach(ChecksumCache::checksums);
+    }
+
+    static Artifact findAttachedArtifact(MavenProject project, String classifier) {
+        for (Artifact attached : project.getAttachedArtifacts()) {
+            if (classifier.equals(attached.getClassifier())) {
+                return attached;
+            }
+        }
+        return null;
+    }
+
+    static boolean isRelocated(MavenProject project) {
+        return relocation(project) != null;
+    }
+
+    private static Relocation relocation(MavenProject project) {
+        DistributionManagement distributionManagement = project.getModel().getDistributionManagement();
+        return distributionManagement == null ? null : distributionManagement.getRelocation();
+    }
+
+    private static boolean isPlatform(MavenProject project) {
+        // only called for 'pom' projects if publishing them as platform was requested
+        return "pom".equals(project.getPackaging());
     }
 
     private static boolean isSnapshot(MavenProject project) {
         return project.getVersion().endsWith("SNAPSHOT");
     }
 
-    private static Map<String, String> componentAttributes(MavenProject project) {
-        return Collections.singletonMap("org.gradle.status", isSnapshot(project) ? "integration" : "release");
+    private static Map<String, String> variantAttributes(Variant variant, NativeVariant nativeVariant) {
+        Map<String, String> attributes = variantAttributes(variant);
+        if (nativeVariant != null) {
+            attributes.put("org.gradle.native.architecture", nativeVariant.getArchitecture());
+            attributes.put("org.gradle.native.operatingSystem", nativeVariant.getOperatingSystem());
+        }
+        return attributes;
     }
 
     private static Map<String, String> variantAttributes(Variant variant) {
         Map<String, String> attributes = new TreeMap<>();
 
-        attributes.put("org.gradle.category", "library");
-        attributes.put("org.gradle.dependency.bundling", "external");
-        attributes.put("org.gradle.libraryelements", "jar");
+        attributes.put("org.gradle.category", variant.category);
+        if (!variant.isPlatform()) {
+            attributes.put("org.gradle.dependency.bundling", variant.bundling);
+            attributes.put("org.gradle.libraryelements", "jar");
+        }
 
         attributes.put("org.gradle.usage", variant.usage);
 
@@ -90,22 +184,17 @@ public class GradleModuleMetadataWriter {
     }
 
     private static void writeComponentWithVariants(MavenProject project, String mavenVersion,
-                                                   List<Dependency> platformDependencies,
-                                                   List<Capability> capabilities,
-                                                   List<Dependency> removedDependencies,
-                                                   List<Dependency> compileOnlyApiDependencies,
+                                                   GradleModuleMetadataOptions options,
                                                    JsonWriter jsonWriter) throws IOException {
         jsonWriter.beginObject();
         writeFormat(jsonWriter);
         writeIdentity(project, jsonWriter);
         writeCreator(mavenVersion, jsonWriter);
-        writeVariants(project, platformDependencies, capabilities, removedDependencies, compileOnlyApiDependencies, jsonWriter);
+        writeVariants(project, options, jsonWriter);
         jsonWriter.endObject();
     }
 
     private static void writeIdentity(MavenProject project, JsonWriter jsonWriter) throws IOException {
-        Map<String, String> componentAttributes = componentAttributes(project);
-
         jsonWriter.name("component");
         jsonWriter.beginObject();
         jsonWriter.name("group");
@@ -114,21 +203,36 @@ public class GradleModuleMetadataWriter {
         jsonWriter.value(project.getArtifactId());
         jsonWriter.name("version");
         jsonWriter.value(project.getVersion());
-        writeAttributes(componentAttributes, jsonWriter);
+        jsonWriter.name("attributes");
+        jsonWriter.value(isSnapshot(project) ? INTEGRATION_ATTRIBUTES : RELEASE_ATTRIBUTES);
         jsonWriter.endObject();
     }
 
 
-    private static void writeVariants(MavenProject project,
-                                      List<Dependency> platformDependencies,
-                                      List<Capability> capabilities,
-                                      List<Dependency> removedDependencies,
-                                      List<Dependency> compileOnlyApiDependencies,
+    private static void writeVariants(MavenProject project, GradleModuleMetadataOptions options,
                                       JsonWriter jsonWriter) throws IOException {
         jsonWriter.name("variants");
         jsonWriter.beginArray();
-        writeVariant(project, Variant.API_ELEMENTS, platformDependencies, capabilities, removedDependencies, compileOnlyApiDependencies, jsonWriter);
-        writeVariant(project, Variant.RUNTIME_ELEMENTS, platformDependencies, capabilities, removedDependencies, null, jsonWriter);
+        Relocation relocation = relocation(project);
+        if (relocation != null) {
+            writeRelocatedVariant(project, Variant.API_ELEMENTS, relocation, options.getExplain(), jsonWriter);
+            writeRelocatedVariant(project, Variant.RUNTIME_ELEMENTS, relocation, options.getExplain(), jsonWriter);
+        } else if (isPlatform(project)) {
+            writeVariant(project, Variant.PLATFORM_API_ELEMENTS, null, options, jsonWriter);
+            writeVariant(project, Variant.PLATFORM_RUNTIME_ELEMENTS, null, options, jsonWriter);
+        } else {
+            writeVariant(project, Variant.API_ELEMENTS, null, options, jsonWriter);
+            writeVariant(project, Variant.RUNTIME_ELEMENTS, null, options, jsonWriter);
+            if (!isNullOrEmpty(options.getNativeVariants())) {
+                for (NativeVariant nativeVariant : options.getNativeVariants()) {
+                    writeVariant(project, Variant.RUNTIME_ELEMENTS, nativeVariant, options, jsonWriter);
+                }
+            }
+            if (options.getShadedVariant() != null) {
+                writeShadedVariant(project, Variant.SHADED_API_ELEMENTS, options, jsonWriter);
+                writeShadedVariant(project, Variant.SHADED_RUNTIME_ELEMENTS, options, jsonWriter);
+            }
+        }
         jsonWriter.endArray();
     }
 
@@ -145,24 +249,137 @@ public class GradleModuleMetadataWriter {
 
     private static void writeFormat(JsonWriter jsonWriter) throws IOException {
         jsonWriter.name("formatVersion");
-        jsonWriter.value(FORMAT_VERSION);
+        jsonWriter.value(FORMAT_VERSION_VALUE);
     }
 
-    private static void writeVariant(MavenProject project, Variant variant,
-                                     List<Dependency> platformDependencies,
-                                     List<Capability> capabilities,
-                                     List<Dependency> removedDependencies,
-                                     List<Dependency> addedDependencies,
+    private static void writeVariant(MavenProject project, Variant variant, NativeVariant nativeVariant,
+                                     GradleModuleMetadataOptions options,
                                      JsonWriter jsonWriter) throws IOException {
+        Log explain = options.getExplain();
+        String name = nativeVariant == null ? variant.name : variant.name + "-" + nativeVariant.getClassifier();
+        if (explain != null) {
+            explain.info(name + " (" + variant.category + ")");
+        }
+        jsonWriter.beginObject();
+        jsonWriter.name("name");
+        jsonWriter.value(name);
+        if (nativeVariant == null) {
+            jsonWriter.name("attributes");
+            jsonWriter.value(VARIANT_ATTRIBUTES.get(variant));
+        } else {
+            writeAttributes(variantAttributes(variant, nativeVariant), jsonWriter);
+        }
+        writeDependencies(variant, project.getDependencies(), options, jsonWriter);
+        writeDependencyConstraints(project, variant, options.getAlignmentConstraints(), explain, jsonWriter);
+        if (!variant.isPlatform()) {
+            writeArtifacts(nativeVariant == null
+                    ? Collections.singletonList(project.getArtifact())
+                    : Arrays.asList(project.getArtifact(), findAttachedArtifact(project, nativeVariant.getClassifier())),
+                    explain, jsonWriter);
+        }
+        writeCapabilities(project, options.getCapabilities(), jsonWriter);
+
+        jsonWriter.endObject();
+    }
+
+    /**
+     * A shaded variant has its own capability, so that it is only selected if a consumer explicitly asks for it,
+     * and only the dependencies that were not bundled.
+     */
+    private static void writeShadedVariant(MavenProject project, Variant variant, GradleModuleMetadataOptions options,
+                                           JsonWriter jsonWriter) throws IOException {
+        ShadedVariant shadedVariant = options.getShadedVariant();
+        Log explain = options.getExplain();
+        if (explain != null) {
+            explain.info(variant.name + " (" + variant.category + ", " + variant.bundling + ")");
+        }
         jsonWriter.beginObject();
         jsonWriter.name("name");
         jsonWriter.value(variant.name);
-        writeAttributes(variantAttributes(variant), jsonWriter);
-        writeDependencies(variant, project.getDependencies(), platformDependencies, removedDependencies, addedDependencies, jsonWriter);
-        writeArtifacts(project, jsonWriter);
-        writeCapabilities(project, capabilities, jsonWriter);
+        jsonWriter.name("attributes");
+        jsonWriter.value(VARIANT_ATTRIBUTES.get(variant));
+        List<Dependency> dependencies = shadedVariant.getDependencies();
+        if (!isNullOrEmpty(dependencies)) {
+            jsonWriter.name("dependencies");
+            jsonWriter.beginArray();
+            for (Dependency dependency : dependencies) {
+                if (dependency.getScope() == null || variant.scopes.contains(dependency.getScope())) {
+                    explain(explain, true, dependency, "not bundled");
+                    writeDependency(dependency, false, options.getResolvedVersions(), jsonWriter);
+                }
+            }
+            jsonWriter.endArray();
+        }
+        writeArtifacts(Collections.singletonList(findAttachedArtifact(project, shadedVariant.getClassifier())), explain, jsonWriter);
+
+        jsonWriter.name("capabilities");
+        jsonWriter.beginArray();
+        jsonWriter.beginObject();
+        jsonWriter.name("group").value(project.getGroupId());
+        jsonWriter.name("name").value(project.getArtifactId() + "-" + shadedVariant.getClassifier());
+        jsonWriter.name("version").value(project.getVersion());
+        jsonWriter.endObject();
+        jsonWriter.endArray();
+
+        jsonWriter.endObject();
+    }
+
+    /**
+     * A relocated module points consumers directly to the new coordinates, so that they do not need to fetch
+     * the POM of the old coordinates first to find out about the relocation.
+     */
+    private static void writeRelocatedVariant(MavenProject project, Variant variant, Relocation relocation,
+                                              Log explain, JsonWriter jsonWriter) throws IOException {
+        String group = isNullOrEmpty(relocation.getGroupId()) ? project.getGroupId() : relocation.getGroupId();
+        String module = isNullOrEmpty(relocation.getArtifactId()) ? project.getArtifactId() : relocation.getArtifactId();
+        String version = isNullOrEmpty(relocation.getVersion()) ? project.getVersion() : relocation.getVersion();
+        if (explain != null) {
+            explain.info(variant.name + " (relocated)");
+            explain.info("  available at " + group + ":" + module + ":" + version);
+        }
 
+        jsonWriter.beginObject();
+        jsonWriter.name("name");
+        jsonWriter.value(variant.name);
+        jsonWriter.name("attributes");
+        jsonWriter.value(VARIANT_ATTRIBUTES.get(variant));
+        jsonWriter.name("available-at");
+        jsonWriter.beginObject();
+        jsonWriter.name("url");
+        jsonWriter.value(relativeModuleUrl(project.getGroupId(), project.getArtifactId(), project.getVersion(),
+                group, module, version));
+        jsonWriter.name("group");
+        jsonWriter.value(group);
+        jsonWriter.name("module");
+        jsonWriter.value(module);
+        jsonWriter.name("version");
+        jsonWriter.value(version);
         jsonWriter.endObject();
+        jsonWriter.endObject();
+    }
+
+    private static String relativeModuleUrl(String fromGroup, String fromModule, String fromVersion,
+                                            String toGroup, String toModule, String toVersion) {
+        List<String> from = new ArrayList<>(Arrays.asList(fromGroup.split("\\.")));
+        from.add(fromModule);
+        from.add(fromVersion);
+        List<String> to = new ArrayList<>(Arrays.asList(toGroup.split("\\.")));
+        to.add(toModule);
+        to.add(toVersion);
+
+        int common = 0;
+        while (common < from.size() && common < to.size() && from.get(common).equals(to.get(common))) {
+            common++;
+        }
+        StringBuilder url = new StringBuilder();
+        for (int i = common; i < from.size(); i++) {
+            url.append("../");
+        }
+        for (int i = common; i < to.size(); i++) {
+            url.append(to.get(i)).append('/');
+        }
+        url.append(toModule).append('-').append(toVersion).append(".module");
+        return url.toString();
     }
 
     private static void writeAttributes(Map<String, String> attributes, JsonWriter jsonWriter) throws IOException {
@@ -170,6 +387,10 @@ public class GradleModuleMetadataWriter {
             return;
         }
         jsonWriter.name("attributes");
+        writeAttributeValues(attributes, jsonWriter);
+    }
+
+    private static void writeAttributeValues(Map<String, String> attributes, JsonWriter jsonWriter) throws IOException {
         jsonWriter.beginObject();
 
         for (Map.Entry<String, String> attribute : attributes.entrySet()) {
@@ -180,14 +401,25 @@ public class GradleModuleMetadataWriter {
         jsonWriter.endObject();
     }
 
-    private static void writeArtifacts(MavenProject project, JsonWriter jsonWriter) throws IOException {
+    private static void writeArtifacts(List<Artifact> artifacts, Log explain, JsonWriter jsonWriter) throws IOException {
+        if (explain != null && !artifacts.stream().allMatch(GradleModuleMetadataWriter::isFile)) {
+            // explain mode may run without building the artifacts
+            explain.info("  files omitted: artifacts not built");
+            return;
+        }
         jsonWriter.name("files");
         jsonWriter.beginArray();
-        writeArtifact(project.getArtifact(), jsonWriter);
+        for (Artifact artifact : artifacts) {
+            writeArtifact(artifact, explain, jsonWriter);
+        }
         jsonWriter.endArray();
     }
 
-    private static void writeArtifact(Artifact artifact, JsonWriter jsonWriter) throws IOException {
+    private static boolean isFile(Artifact artifact) {
+        return artifact != null && artifact.getFile() != null && artifact.getFile().isFile();
+    }
+
+    private static void writeArtifact(Artifact artifact, Log explain, JsonWriter jsonWriter) throws IOException {
         File file = artifact.getFile();
         String fileName = getFileNameForArtifact(artifact);
 
@@ -199,7 +431,11 @@ public class GradleModuleMetadataWriter {
 
         jsonWriter.name("size");
         jsonWriter.value(file.length());
-        writeChecksums(file, jsonWriter);
+        if (explain == null) {
+            writeChecksums(file, jsonWriter);
+        } else {
+            explain.info("  file " + fileName + " (" + file.length() + " bytes, checksums omitted)");
+        }
 
         jsonWriter.endObject();
     }
@@ -223,22 +459,28 @@ public class GradleModuleMetadataWriter {
     }
 
     private static void writeChecksums(File artifact, JsonWriter jsonWriter) throws IOException {
+        Checksums checksums = ChecksumCache.checksums(artifact);
         jsonWriter.name("sha512");
-        jsonWriter.value(HashUtil.sha512(artifact).asHexString());
+        jsonWriter.value(checksums.getSha512().asHexString());
         jsonWriter.name("sha256");
-        jsonWriter.value(HashUtil.sha256(artifact).asHexString());
+        jsonWriter.value(checksums.getSha256().asHexString());
         jsonWriter.name("sha1");
-        jsonWriter.value(HashUtil.sha1(artifact).asHexString());
+        jsonWriter.value(checksums.getSha1().asHexString());
         jsonWriter.name("md5");
-        jsonWriter.value(HashUtil.createHash(artifact, "md5").asHexString());
+        jsonWriter.value(checksums.getMd5().asHexString());
     }
 
     private static void writeDependencies(Variant variant,
                                           List<Dependency> dependencies,
-                                          List<Dependency> platformDependencies,
-                                          List<Dependency> removedDependencies,
-                                          List<Dependency> addedDependencies,
+                                          GradleModuleMetadataOptions options,
                                           JsonWriter jsonWriter) throws IOException {
+        List<Dependency> platformDependencies = options.getPlatformDependencies();
+        List<Dependency> removedDependencies = options.getRemovedDependencies();
+        // compile only API dependencies are added to, runtime only dependencies are removed from, the API only
+        List<Dependency> addedDependencies = variant.isApi() ? options.getCompileOnlyApiDependencies() : null;
+        List<Dependency> runtimeOnlyDependencies = variant.isApi() ? options.getRuntimeOnlyDependencies() : null;
+        ResolvedVersions resolvedVersions = options.getResolvedVersions();
+        Log explain = options.getExplain();
         if (dependencies.isEmpty() && isNullOrEmpty(platformDependencies) && isNullOrEmpty(addedDependencies)) {
             return;
         }
@@ -247,47 +489,77 @@ public class GradleModuleMetadataWriter {
         for (Dependency dependency : dependencies) {
             if (Boolean.parseBoolean(dependency.getOptional())) {
                 // Dependency is optional, all tooling ignores it
+                explain(explain, false, dependency, "optional");
                 continue;
             }
             if (!variant.scopes.contains(dependency.getScope())) {
                 // Dependency is not in scope
+                explain(explain, false, dependency, "scope '" + dependency.getScope() + "'");
                 continue;
             }
-            if (removedDependencies != null && removedDependencies.stream().anyMatch(removed ->
-                    dependency.getGroupId().equals(removed.getGroupId()) && dependency.getArtifactId().equals(removed.getArtifactId()))) {
+            if (contains(removedDependencies, dependency)) {
                 // Dependency is explicitly removed (e.g. because the shade plugin removes it from the POM as well)
+                explain(explain, false, dependency, "removed");
                 continue;
             }
-            writeDependency(dependency, false, jsonWriter);
+            if (contains(runtimeOnlyDependencies, dependency)) {
+                // Dependency is not exposed in the API, consumers only need it at runtime
+                explain(explain, false, dependency, "not part of the API");
+                continue;
+            }
+            explain(explain, true, dependency, "scope '" + dependency.getScope() + "'");
+            writeDependency(dependency, false, resolvedVersions, jsonWriter);
         }
 
         if (!isNullOrEmpty(addedDependencies)) {
             for (Dependency dependency : addedDependencies) {
-                writeDependency(dependency, false, jsonWriter);
+                explain(explain, true, dependency, "added");
+                writeDependency(dependency, false, resolvedVersions, jsonWriter);
             }
         }
 
         if (!isNullOrEmpty(platformDependencies)) {
             for (Dependency dependency : platformDependencies) {
                 if (dependency.getScope() == null || variant.scopes.contains(dependency.getScope())) {
-                    writeDependency(dependency, true, jsonWriter);
+                    explain(explain, true, dependency, "platform");
+                    writeDependency(dependency, true, resolvedVersions, jsonWriter);
+                } else {
+                    explain(explain, false, dependency, "platform with scope '" + dependency.getScope() + "'");
                 }
             }
         }
         jsonWriter.endArray();
     }
 
-    private static void writeDependency(Dependency dependency, boolean toPlatform,
+    static boolean contains(List<Dependency> dependencies, Dependency dependency) {
+        return dependencies != null && dependencies.stream().anyMatch(listed ->
+                dependency.getGroupId().equals(listed.getGroupId()) && dependency.getArtifactId().equals(listed.getArtifactId()));
+    }
+
+    private static void explain(Log explain, boolean included, Dependency dependency, String reason) {
+        if (explain != null) {
+            explain.info("  " + (included ? "+ " : "- ") + dependency.getGroupId() + ":" + dependency.getArtifactId()
+                    + (dependency.getVersion() == null ? "" : ":" + dependency.getVersion()) + " (" + reason + ")");
+        }
+    }
+
+    private static void writeDependency(Dependency dependency, boolean toPlatform, ResolvedVersions resolvedVersions,
                                         JsonWriter jsonWriter) throws IOException {
         jsonWriter.beginObject();
         jsonWriter.name("group");
         jsonWriter.value(dependency.getGroupId());
         jsonWriter.name("module");
         jsonWriter.value(dependency.getArtifactId());
-        writeVersionConstraint(dependency.getVersion(), jsonWriter);
+        String resolvedVersion = resolvedVersions == null ? null : resolvedVersions.resolvedVersion(dependency);
+        if (resolvedVersion == null) {
+            writeVersionConstraint(dependency.getVersion(), jsonWriter);
+        } else {
+            writeResolvedVersionConstraint(dependency.getVersion(), resolvedVersion, resolvedVersions.isStrictly(), jsonWriter);
+        }
         writeExcludes(dependency.getExclusions(), jsonWriter);
         if (toPlatform) {
-            writeAttributes(Collections.singletonMap("org.gradle.category", "platform"), jsonWriter);
+            jsonWriter.name("attributes");
+            jsonWriter.value(PLATFORM_DEPENDENCY_ATTRIBUTES);
             jsonWriter.name("endorseStrictVersions");
             jsonWriter.value(true);
         }
@@ -297,6 +569,56 @@ public class GradleModuleMetadataWriter {
         jsonWriter.endObject();
     }
 
+    private static void writeDependencyConstraints(MavenProject project, Variant variant,
+                                                   List<Dependency> alignmentConstraints,
+                                                   Log explain,
+                                                   JsonWriter jsonWriter) throws IOException {
+        DependencyManagement dependencyManagement = variant.isPlatform() ? project.getDependencyManagement() : null;
+        List<Dependency> managedDependencies = dependencyManagement == null
+                ? Collections.emptyList() : dependencyManagement.getDependencies();
+
+        // Imported BOMs are already merged into the effective model. Entries that only differ in
+        // classifier or type are the same module for Gradle and are therefore written once.
+        // A module never constrains itself.
+        Set<String> writtenModules = new HashSet<>();
+        writtenModules.add(project.getGroupId() + ":" + project.getArtifactId());
+        boolean started = false;
+        for (Dependency dependency : managedDependencies) {
+            if (!"import".equals(dependency.getScope())) {
+                started = writeDependencyConstraint(dependency, "managed", writtenModules, started, explain, jsonWriter);
+            }
+        }
+        if (!isNullOrEmpty(alignmentConstraints)) {
+            for (Dependency dependency : alignmentConstraints) {
+                started = writeDependencyConstraint(dependency, "reactor alignment", writtenModules, started, explain, jsonWriter);
+            }
+        }
+        if (started) {
+            jsonWriter.endArray();
+        }
+    }
+
+    private static boolean writeDependencyConstraint(Dependency dependency, String reason, Set<String> writtenModules,
+                                                     boolean started, Log explain,
+                                                     JsonWriter jsonWriter) throws IOException {
+        if (!writtenModules.add(dependency.getGroupId() + ":" + dependency.getArtifactId())) {
+            return started;
+        }
+        if (!started) {
+            jsonWriter.name("dependencyConstraints");
+            jsonWriter.beginArray();
+        }
+        explain(explain, true, dependency, "constraint: " + reason);
+        jsonWriter.beginObject();
+        jsonWriter.name("group");
+        jsonWriter.value(dependency.getGroupId());
+        jsonWriter.name("module");
+        jsonWriter.value(dependency.getArtifactId());
+        writeVersionConstraint(dependency.getVersion(), jsonWriter);
+        jsonWriter.endObject();
+        return true;
+    }
+
     private static void writeVersionConstraint(String version, JsonWriter jsonWriter) throws IOException {
         if (version == null) {
             return;
@@ -308,6 +630,24 @@ public class GradleModuleMetadataWriter {
         jsonWriter.endObject();
     }
 
+    private static void writeResolvedVersionConstraint(String range, String resolvedVersion, boolean strictly,
+                                                       JsonWriter jsonWriter) throws IOException {
+        jsonWriter.name("version");
+        jsonWriter.beginObject();
+        if (strictly) {
+            jsonWriter.name("strictly");
+            jsonWriter.value(resolvedVersion);
+            jsonWriter.name("requires");
+            jsonWriter.value(resolvedVersion);
+        } else {
+            jsonWriter.name("requires");
+            jsonWriter.value(range);
+            jsonWriter.name("prefers");
+            jsonWriter.value(resolvedVersion);
+        }
+        jsonWriter.endObject();
+    }
+
     private static void writeDependencyArtifact(Dependency dependency, JsonWriter jsonWriter) throws IOException {
         jsonWriter.name("thirdPartyCompatibility");
         jsonWriter.beginObject();
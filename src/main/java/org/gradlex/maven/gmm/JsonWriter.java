@@ -0,0 +1,346 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON writer that writes pretty-printed (two spaces indent) UTF-8 directly to an output stream.
+ * <p>
+ * The output is formatted and escaped exactly like Gson's JsonWriter with 'setIndent("  ")' and
+ * 'setHtmlSafe(false)', which this plugin used before. Values that are the same for every module, such as the fixed
+ * attributes of a variant, can be encoded once as {@link Fragment} and then be written as a block of bytes.
+ */
+class JsonWriter {
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+    private static final int FRAGMENT = 7;
+
+    private static final byte[] INDENT = {' ', ' '};
+    private static final byte[] SEPARATOR = {':', ' '};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int position = 0;
+
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+    private String deferredName;
+
+    /**
+     * A value encoded once for a fixed nesting depth.
+     */
+    static class Fragment {
+        private final int depth;
+        private final byte[] bytes;
+
+        private Fragment(int depth, byte[] bytes) {
+            this.depth = depth;
+            this.bytes = bytes;
+        }
+    }
+
+    interface FragmentContent {
+        void writeTo(JsonWriter jsonWriter) throws IOException;
+    }
+
+    JsonWriter(OutputStream out) {
+        this.out = out;
+        push(EMPTY_DOCUMENT);
+    }
+
+    /**
+     * Encodes a value for being written, with {@link #value(Fragment)}, at the given depth - the number of arrays and
+     * objects that enclose it.
+     */
+    static Fragment fragment(int depth, FragmentContent content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonWriter fragmentWriter = new JsonWriter(bytes);
+        fragmentWriter.stack[0] = FRAGMENT;
+        for (int i = 0; i < depth; i++) {
+            fragmentWriter.push(FRAGMENT);
+        }
+        try {
+            content.writeTo(fragmentWriter);
+            fragmentWriter.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new Fragment(depth, bytes.toByteArray());
+    }
+
+    JsonWriter beginObject() throws IOException {
+        return open(EMPTY_OBJECT, '{');
+    }
+
+    JsonWriter endObject() throws IOException {
+        return close(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+    }
+
+    JsonWriter beginArray() throws IOException {
+        return open(EMPTY_ARRAY, '[');
+    }
+
+    JsonWriter endArray() throws IOException {
+        return close(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+    }
+
+    JsonWriter name(String name) {
+        if (deferredName != null || stack[stackSize - 1] != EMPTY_OBJECT && stack[stackSize - 1] != NONEMPTY_OBJECT) {
+            throw new IllegalStateException("Unexpected name: " + name);
+        }
+        deferredName = name;
+        return this;
+    }
+
+    JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    JsonWriter value(long value) throws IOException {
+        writeDeferredName();
+        beforeValue();
+        ascii(Long.toString(value));
+        return this;
+    }
+
+    JsonWriter value(boolean value) throws IOException {
+        writeDeferredName();
+        beforeValue();
+        write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    JsonWriter value(Fragment fragment) throws IOException {
+        writeDeferredName();
+        if (fragment.depth != stackSize - 1) {
+            throw new IllegalStateException("Fragment for depth " + fragment.depth + " used at depth " + (stackSize - 1));
+        }
+        beforeValue();
+        write(fragment.bytes);
+        return this;
+    }
+
+    JsonWriter nullValue() throws IOException {
+        writeDeferredName();
+        beforeValue();
+        write(NULL);
+        return this;
+    }
+
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private JsonWriter open(int empty, char openBracket) throws IOException {
+        writeDeferredName();
+        beforeValue();
+        push(empty);
+        write((byte) openBracket);
+        return this;
+    }
+
+    private JsonWriter close(int empty, int nonempty, char closeBracket) throws IOException {
+        int context = stack[stackSize - 1];
+        if (context != empty && context != nonempty || deferredName != null) {
+            throw new IllegalStateException("Nesting problem");
+        }
+        stackSize--;
+        if (context == nonempty) {
+            newline();
+        }
+        write((byte) closeBracket);
+        return this;
+    }
+
+    private void push(int context) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = context;
+    }
+
+    private void writeDeferredName() throws IOException {
+        if (deferredName != null) {
+            int context = stack[stackSize - 1];
+            if (context == NONEMPTY_OBJECT) {
+                write((byte) ',');
+            }
+            newline();
+            stack[stackSize - 1] = DANGLING_NAME;
+            string(deferredName);
+            deferredName = null;
+        }
+    }
+
+    private void beforeValue() throws IOException {
+        switch (stack[stackSize - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                newline();
+                break;
+            case NONEMPTY_ARRAY:
+                write((byte) ',');
+                newline();
+                break;
+            case DANGLING_NAME:
+                write(SEPARATOR);
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                break;
+            case FRAGMENT:
+                break;
+            default:
+                throw new IllegalStateException("Nesting problem");
+        }
+    }
+
+    private void newline() throws IOException {
+        write((byte) '\n');
+        for (int i = 1; i < stackSize; i++) {
+            write(INDENT);
+        }
+    }
+
+    private void string(String value) throws IOException {
+        write((byte) '"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                escapeAscii(c);
+            } else if (c < 0x800) {
+                write((byte) (0xc0 | c >> 6));
+                write((byte) (0x80 | c & 0x3f));
+            } else if (c == '\u2028' || c == '\u2029') {
+                unicodeEscape(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write((byte) (0xf0 | codePoint >> 18));
+                write((byte) (0x80 | codePoint >> 12 & 0x3f));
+                write((byte) (0x80 | codePoint >> 6 & 0x3f));
+                write((byte) (0x80 | codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate, replaced like Java's UTF-8 encoder does
+                write((byte) '?');
+            } else {
+                write((byte) (0xe0 | c >> 12));
+                write((byte) (0x80 | c >> 6 & 0x3f));
+                write((byte) (0x80 | c & 0x3f));
+            }
+        }
+        write((byte) '"');
+    }
+
+    private void escapeAscii(char c) throws IOException {
+        switch (c) {
+            case '"':
+                write((byte) '\\');
+                write((byte) '"');
+                break;
+            case '\\':
+                write((byte) '\\');
+                write((byte) '\\');
+                break;
+            case '\t':
+                write((byte) '\\');
+                write((byte) 't');
+                break;
+            case '\b':
+                write((byte) '\\');
+                write((byte) 'b');
+                break;
+            case '\n':
+                write((byte) '\\');
+                write((byte) 'n');
+                break;
+            case '\r':
+                write((byte) '\\');
+                write((byte) 'r');
+                break;
+            case '\f':
+                write((byte) '\\');
+                write((byte) 'f');
+                break;
+            default:
+                if (c < 0x20) {
+                    unicodeEscape(c);
+                } else {
+                    write((byte) c);
+                }
+        }
+    }
+
+    private void unicodeEscape(char c) throws IOException {
+        write((byte) '\\');
+        write((byte) 'u');
+        write(HEX[c >> 12 & 0xf]);
+        write(HEX[c >> 8 & 0xf]);
+        write(HEX[c >> 4 & 0xf]);
+        write(HEX[c & 0xf]);
+    }
+
+    private void ascii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            write((byte) value.charAt(i));
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            out.write(buffer, 0, position);
+            position = 0;
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void write(byte b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = b;
+    }
+}
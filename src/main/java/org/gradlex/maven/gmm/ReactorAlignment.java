@@ -0,0 +1,66 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Dependency constraints on all modules of the reactor, which make Gradle align the versions of all modules that
+ * are built together. Gradle Module Metadata has no notion of a virtual platform a module 'belongs to'. Constraints
+ * on all siblings have the same effect: if one module of the reactor is upgraded, all others are upgraded as well.
+ * <p>
+ * The list is the same for each module of a build and is therefore only computed once per Maven invocation. It is
+ * cached by the execution request, which is shared by all projects, while parallel builds (-T) clone the session
+ * for each project.
+ */
+class ReactorAlignment {
+
+    private static final Map<MavenExecutionRequest, List<Dependency>> CONSTRAINTS = new WeakHashMap<>();
+
+    static List<Dependency> constraints(MavenSession session) {
+        synchronized (CONSTRAINTS) {
+            return CONSTRAINTS.computeIfAbsent(session.getRequest(), request -> computeConstraints(session));
+        }
+    }
+
+    private static List<Dependency> computeConstraints(MavenSession session) {
+        // all projects of the reactor, even if only some are built (e.g. '-pl'), so that all modules are aligned
+        List<MavenProject> projects = session.getAllProjects() != null ? session.getAllProjects() : session.getProjects();
+        List<Dependency> constraints = new ArrayList<>(projects.size());
+        for (MavenProject project : projects) {
+            if ("pom".equals(project.getPackaging())) {
+                // parents and aggregators are not consumed as libraries
+                continue;
+            }
+            Dependency constraint = new Dependency();
+            constraint.setGroupId(project.getGroupId());
+            constraint.setArtifactId(project.getArtifactId());
+            constraint.setVersion(project.getVersion());
+            constraints.add(constraint);
+        }
+        return Collections.unmodifiableList(constraints);
+    }
+}
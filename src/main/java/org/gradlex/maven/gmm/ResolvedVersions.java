@@ -0,0 +1,65 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Dependency;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The versions Maven selected for the dependencies of a project. For dependencies declared with a version range,
+ * the selected version is published in addition to the range (as 'prefers') or in place of it (as 'strictly'),
+ * so that Gradle does not need to list the available versions of the module to pick one from the range.
+ */
+public class ResolvedVersions {
+
+    private final Map<String, String> versions = new HashMap<>();
+    private final boolean strictly;
+
+    /**
+     * @param artifacts the resolved dependencies of the project
+     * @param strictly if true, dependencies declared with a range are pinned to the selected version
+     */
+    public ResolvedVersions(Collection<Artifact> artifacts, boolean strictly) {
+        for (Artifact artifact : artifacts) {
+            versions.put(artifact.getGroupId() + ":" + artifact.getArtifactId(), artifact.getBaseVersion());
+        }
+        this.strictly = strictly;
+    }
+
+    /**
+     * The version Maven selected for the given dependency, or null if it is not declared with a range or was not
+     * resolved.
+     */
+    String resolvedVersion(Dependency dependency) {
+        if (!isRange(dependency.getVersion())) {
+            return null;
+        }
+        return versions.get(dependency.getGroupId() + ":" + dependency.getArtifactId());
+    }
+
+    boolean isStrictly() {
+        return strictly;
+    }
+
+    private static boolean isRange(String version) {
+        return version != null && (version.startsWith("[") || version.startsWith("("));
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm.analysis;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The types a public class exposes to its users: its superclass, interfaces, annotations and all types that appear
+ * in the signatures of its public and protected fields and methods (including generic signatures, thrown exceptions
+ * and type annotations such as '@Nullable String').
+ * <p>
+ * The class file is read directly, only the parts that are needed are decoded. Code, private members and debug
+ * information are skipped without being looked at.
+ */
+class ApiClass {
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+
+    private final String name;
+    private final boolean api;
+    private final Set<String> exposedTypes = new LinkedHashSet<>();
+
+    private final byte[] bytes;
+    private final int[] constantOffsets;
+    private final String[] constantStrings;
+    private int position;
+
+    private ApiClass(byte[] bytes) {
+        this.bytes = bytes;
+        if (readInt() != 0xCAFEBABE) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        position += 4; // minor and major version
+        int constantCount = readUnsignedShort();
+        constantOffsets = new int[constantCount];
+        constantStrings = new String[constantCount];
+        for (int i = 1; i < constantCount; i++) {
+            constantOffsets[i] = position;
+            int tag = bytes[position++];
+            position += constantSize(tag);
+            if (tag == CONSTANT_LONG || tag == CONSTANT_DOUBLE) {
+                i++;
+            }
+        }
+        api = isApi(readUnsignedShort());
+        name = className(readUnsignedShort());
+        if (api) {
+            readClass();
+        }
+    }
+
+    /**
+     * Reads the given class file and returns null if the class is not part of the API.
+     */
+    static ApiClass read(byte[] classFile) {
+        ApiClass apiClass = new ApiClass(classFile);
+        return apiClass.api ? apiClass : null;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Internal names (e.g. 'java/util/List') of the exposed types.
+     */
+    Set<String> getExposedTypes() {
+        return exposedTypes;
+    }
+
+    private static boolean isApi(int access) {
+        return (access & ACC_SYNTHETIC) == 0 && (access & (ACC_PUBLIC | ACC_PROTECTED)) != 0;
+    }
+
+    private void readClass() {
+        int superClass = readUnsignedShort();
+        if (superClass != 0) {
+            exposedTypes.add(className(superClass));
+        }
+        int interfaceCount = readUnsignedShort();
+        for (int i = 0; i < interfaceCount; i++) {
+            exposedTypes.add(className(readUnsignedShort()));
+        }
+        readMembers();
+        readMembers();
+        readAttributes(true);
+        exposedTypes.remove(name);
+    }
+
+    private void readMembers() {
+        int memberCount = readUnsignedShort();
+        for (int i = 0; i < memberCount; i++) {
+            int access = readUnsignedShort();
+            position += 2; // name
+            int descriptor = readUnsignedShort();
+            boolean apiMember = isApi(access);
+            if (apiMember) {
+                addSignatureTypes(utf8(descriptor));
+            }
+            readAttributes(apiMember);
+        }
+    }
+
+    private void readAttributes(boolean apiElement) {
+        int attributeCount = readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8(readUnsignedShort());
+            int length = readInt();
+            int end = position + length;
+            if (apiElement) {
+                switch (attributeName) {
+                    case "Signature":
+                        addSignatureTypes(utf8(readUnsignedShort()));
+                        break;
+                    case "Exceptions":
+                        int exceptionCount = readUnsignedShort();
+                        for (int j = 0; j < exceptionCount; j++) {
+                            exposedTypes.add(className(readUnsignedShort()));
+                        }
+                        break;
+                    case "RuntimeVisibleAnnotations":
+                    case "RuntimeInvisibleAnnotations":
+                        readAnnotations();
+                        break;
+                    case "RuntimeVisibleTypeAnnotations":
+                    case "RuntimeInvisibleTypeAnnotations":
+                        int typeAnnotationCount = readUnsignedShort();
+                        for (int j = 0; j < typeAnnotationCount; j++) {
+                            skipTypeAnnotationTarget();
+                            readAnnotation();
+                        }
+                        break;
+                    case "RuntimeVisibleParameterAnnotations":
+                    case "RuntimeInvisibleParameterAnnotations":
+                        int parameterCount = bytes[position++] & 0xFF;
+                        for (int j = 0; j < parameterCount; j++) {
+                            readAnnotations();
+                        }
+                        break;
+                    case "AnnotationDefault":
+                        readElementValue();
+                        break;
+                    default:
+                        break;
+                }
+            }
+            position = end;
+        }
+    }
+
+    private void readAnnotations() {
+        int annotationCount = readUnsignedShort();
+        for (int i = 0; i < annotationCount; i++) {
+            readAnnotation();
+        }
+    }
+
+    private void readAnnotation() {
+        addSignatureTypes(utf8(readUnsignedShort()));
+        int pairCount = readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            position += 2; // element name
+            readElementValue();
+        }
+    }
+
+    /**
+     * Skips the target_info and type_path of a type annotation (JVMS 4.7.20), which locate the annotated type use.
+     * Only the annotation itself is relevant here.
+     */
+    private void skipTypeAnnotationTarget() {
+        int targetType = bytes[position++] & 0xFF;
+        switch (targetType) {
+            case 0x13: // field
+            case 0x14: // return type
+            case 0x15: // receiver type
+                break;
+            case 0x00: // type parameter of a class
+            case 0x01: // type parameter of a method
+            case 0x16: // formal parameter
+                position += 1;
+                break;
+            case 0x10: // superclass or interface
+            case 0x11: // bound of a type parameter of a class
+            case 0x12: // bound of a type parameter of a method
+            case 0x17: // thrown exception
+            case 0x42: // exception parameter
+            case 0x43: // instanceof
+            case 0x44: // new
+            case 0x45: // method reference with ::new
+            case 0x46: // method reference
+                position += 2;
+                break;
+            case 0x47: // cast
+            case 0x48: // type argument of a constructor call
+            case 0x49: // type argument of a method call
+            case 0x4A: // type argument of a constructor reference
+            case 0x4B: // type argument of a method reference
+                position += 3;
+                break;
+            case 0x40: // local variable
+            case 0x41: // resource variable
+                position += readUnsignedShort() * 6;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type annotation target " + targetType);
+        }
+        int pathLength = bytes[position++] & 0xFF;
+        position += pathLength * 2;
+    }
+
+    private void readElementValue() {
+        char tag = (char) bytes[position++];
+        switch (tag) {
+            case 'e':
+                addSignatureTypes(utf8(readUnsignedShort()));
+                position += 2; // constant name
+                break;
+            case 'c':
+                addSignatureTypes(utf8(readUnsignedShort()));
+                break;
+            case '@':
+                readAnnotation();
+                break;
+            case '[':
+                int valueCount = readUnsignedShort();
+                for (int i = 0; i < valueCount; i++) {
+                    readElementValue();
+                }
+                break;
+            default:
+                position += 2; // constant value
+                break;
+        }
+    }
+
+    /**
+     * Adds all class names of a descriptor or generic signature (JVMS 4.3 and 4.7.9.1). The names of type variables
+     * and the primitive types are skipped.
+     */
+    private void addSignatureTypes(String signature) {
+        int i = signature.charAt(0) == '<' ? typeParameters(signature, 0) : 0;
+        while (i < signature.length()) {
+            char c = signature.charAt(i);
+            if (c == '(' || c == ')' || c == '^' || c == 'V') {
+                i++;
+            } else {
+                i = javaType(signature, i);
+            }
+        }
+    }
+
+    private int typeParameters(String signature, int i) {
+        i++; // '<'
+        while (signature.charAt(i) != '>') {
+            // the parameter's name, followed by its class bound (which may be empty) and interface bounds
+            i = signature.indexOf(':', i);
+            while (signature.charAt(i) == ':') {
+                i++;
+                if (signature.charAt(i) != ':') {
+                    i = javaType(signature, i);
+                }
+            }
+        }
+        return i + 1;
+    }
+
+    private int javaType(String signature, int i) {
+        switch (signature.charAt(i)) {
+            case 'L':
+                return classType(signature, i);
+            case 'T':
+                return signature.indexOf(';', i) + 1;
+            case '[':
+                return javaType(signature, i + 1);
+            default:
+                return i + 1;
+        }
+    }
+
+    private int classType(String signature, int i) {
+        int start = ++i; // 'L'
+        String outerClass = null;
+        while (true) {
+            char c = signature.charAt(i);
+            if (c == ';' || c == '<' || c == '.') {
+                String className = outerClass == null
+                        ? signature.substring(start, i)
+                        : outerClass + '$' + signature.substring(start, i);
+                exposedTypes.add(className);
+                if (c == '<') {
+                    i = typeArguments(signature, i);
+                    c = signature.charAt(i);
+                }
+                if (c == ';') {
+                    return i + 1;
+                }
+                // '.' - a nested class of a generic class
+                outerClass = className;
+                start = ++i;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private int typeArguments(String signature, int i) {
+        i++; // '<'
+        while (signature.charAt(i) != '>') {
+            char c = signature.charAt(i);
+            if (c == '*' || c == '+' || c == '-') {
+                i++;
+            } else {
+                i = javaType(signature, i);
+            }
+        }
+        return i + 1;
+    }
+
+    private String className(int classIndex) {
+        int nameIndex = unsignedShortAt(constantOffsets[classIndex] + 1);
+        return utf8(nameIndex);
+    }
+
+    private String utf8(int index) {
+        String value = constantStrings[index];
+        if (value == null) {
+            int offset = constantOffsets[index];
+            if (bytes[offset] != CONSTANT_UTF8) {
+                throw new IllegalArgumentException("Constant " + index + " is not a string");
+            }
+            value = decodeModifiedUtf8(offset + 3, unsignedShortAt(offset + 1));
+            constantStrings[index] = value;
+        }
+        return value;
+    }
+
+    private String decodeModifiedUtf8(int offset, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; ) {
+            int b = bytes[i++] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if (b < 0xE0) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | bytes[i++] & 0x3F);
+            } else {
+                chars[count++] = (char) ((b & 0x0F) << 12 | (bytes[i++] & 0x3F) << 6 | bytes[i++] & 0x3F);
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private int constantSize(int tag) {
+        switch (tag) {
+            case CONSTANT_UTF8:
+                return 2 + unsignedShortAt(position);
+            case 7: // Class
+            case 8: // String
+            case 16: // MethodType
+            case 19: // Module
+            case 20: // Package
+                return 2;
+            case 15: // MethodHandle
+                return 3;
+            case 3: // Integer
+            case 4: // Float
+            case 9: // Fieldref
+            case 10: // Methodref
+            case 11: // InterfaceMethodref
+            case 12: // NameAndType
+            case 17: // Dynamic
+            case 18: // InvokeDynamic
+                return 4;
+            case CONSTANT_LONG:
+            case CONSTANT_DOUBLE:
+                return 8;
+            default:
+                throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+        }
+    }
+
+    private int readUnsignedShort() {
+        int value = unsignedShortAt(position);
+        position += 2;
+        return value;
+    }
+
+    private int readInt() {
+        int value = (bytes[position] & 0xFF) << 24 | (bytes[position + 1] & 0xFF) << 16
+                | (bytes[position + 2] & 0xFF) << 8 | bytes[position + 3] & 0xFF;
+        position += 4;
+        return value;
+    }
+
+    private int unsignedShortAt(int offset) {
+        return (bytes[offset] & 0xFF) << 8 | bytes[offset + 1] & 0xFF;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm.analysis;
+
+import org.apache.maven.model.Dependency;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of {@link ApiDependencyAnalyzer#analyze}: the analyzed compile dependencies, each with the reason why it
+ * is or is not part of the API.
+ */
+public class ApiDependencies {
+
+    private final Map<Dependency, String> api = new LinkedHashMap<>();
+    private final Map<Dependency, String> runtimeOnly = new LinkedHashMap<>();
+
+    void addApi(Dependency dependency, String reason) {
+        api.put(dependency, reason);
+    }
+
+    void addRuntimeOnly(Dependency dependency, String reason) {
+        runtimeOnly.put(dependency, reason);
+    }
+
+    /**
+     * Compile dependencies that stay in the API, with the reason.
+     */
+    public Map<Dependency, String> getApi() {
+        return Collections.unmodifiableMap(api);
+    }
+
+    /**
+     * Compile dependencies that are only needed at runtime, with the reason.
+     */
+    public Map<Dependency, String> getRuntimeOnly() {
+        return Collections.unmodifiableMap(runtimeOnly);
+    }
+}
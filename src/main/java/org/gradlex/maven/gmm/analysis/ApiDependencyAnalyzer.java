@@ -0,0 +1,208 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm.analysis;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds out which compile dependencies of a project are part of its API - i.e. whether any of their classes
+ * (or the classes of their transitive dependencies) appear in the public or protected signatures of the packaged
+ * classes. Consumers need the other compile dependencies only at runtime.
+ * <p>
+ * The project's jar is read through the central directory of the ZIP file and all classes are analyzed in parallel.
+ * Of the dependencies, only the names of the entries are read.
+ */
+public class ApiDependencyAnalyzer {
+
+    private static final String VERSIONS_FOLDER = "META-INF/versions/";
+
+    /**
+     * @param artifacts the resolved dependencies of the project, with their dependency trails
+     */
+    public static ApiDependencies analyze(MavenProject project, Collection<Artifact> artifacts) throws IOException {
+        Map<String, String> exposingClasses = exposingClasses(project.getArtifact().getFile());
+
+        Map<String, List<File>> filesByDependency = new HashMap<>();
+        for (Artifact artifact : artifacts) {
+            if (artifact.getFile() != null) {
+                filesByDependency.computeIfAbsent(directDependencyKey(artifact), k -> new ArrayList<>()).add(artifact.getFile());
+            }
+        }
+
+        ApiDependencies result = new ApiDependencies();
+        Map<File, Set<String>> classesByFile = new HashMap<>();
+        for (Dependency dependency : project.getDependencies()) {
+            if (!"compile".equals(dependency.getScope()) || Boolean.parseBoolean(dependency.getOptional())) {
+                continue;
+            }
+            List<File> files = filesByDependency.get(dependency.getGroupId() + ":" + dependency.getArtifactId());
+            if (files == null) {
+                result.addApi(dependency, "not resolved");
+                continue;
+            }
+            String reason = null;
+            for (File file : files) {
+                Set<String> classNames = classesByFile.get(file);
+                if (classNames == null) {
+                    classNames = classNames(file);
+                    classesByFile.put(file, classNames);
+                }
+                for (String className : classNames) {
+                    String exposingClass = exposingClasses.get(className);
+                    if (exposingClass != null) {
+                        reason = javaName(exposingClass) + " exposes " + javaName(className);
+                        break;
+                    }
+                }
+                if (reason != null) {
+                    break;
+                }
+            }
+            if (reason != null) {
+                result.addApi(dependency, reason);
+            } else {
+                result.addRuntimeOnly(dependency, "not exposed in public or protected signatures");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * All types exposed by the API classes of the given jar, each with the (first) class that exposes it.
+     */
+    private static Map<String, String> exposingClasses(File jar) throws IOException {
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            List<ZipEntry> classEntries = zipFile.stream()
+                    .filter(entry -> isClassFile(entry.getName()))
+                    .collect(Collectors.toList());
+            List<ApiClass> apiClasses;
+            try {
+                apiClasses = classEntries.parallelStream()
+                        .map(entry -> readApiClass(zipFile, entry))
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // merged in the order of the entries, so that the reported classes do not depend on the threads
+            Map<String, String> result = new HashMap<>();
+            for (ApiClass apiClass : apiClasses) {
+                if (apiClass != null) {
+                    for (String type : apiClass.getExposedTypes()) {
+                        result.putIfAbsent(type, apiClass.getName());
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    private static ApiClass readApiClass(ZipFile zipFile, ZipEntry entry) {
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            return ApiClass.read(readAllBytes(in, entry.getSize()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            throw new UncheckedIOException(new IOException("Unable to read class file " + entry.getName(), e));
+        }
+    }
+
+    private static Set<String> classNames(File file) throws IOException {
+        Set<String> result = new HashSet<>();
+        if (file.isDirectory()) {
+            // a module of the same reactor that was not packaged yet
+            Path root = file.toPath();
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.map(path -> root.relativize(path).toString().replace(File.separatorChar, '/'))
+                        .filter(ApiDependencyAnalyzer::isClassFile)
+                        .forEach(path -> result.add(className(path)));
+            }
+            return result;
+        }
+        try (ZipFile zipFile = new ZipFile(file)) {
+            zipFile.stream()
+                    .map(ZipEntry::getName)
+                    .filter(ApiDependencyAnalyzer::isClassFile)
+                    .forEach(path -> result.add(className(path)));
+        } catch (ZipException e) {
+            // not a jar (e.g. a POM)
+            return Collections.emptySet();
+        }
+        return result;
+    }
+
+    /**
+     * The direct dependency through which the artifact is on the classpath, as 'group:artifact'.
+     */
+    private static String directDependencyKey(Artifact artifact) {
+        List<String> trail = artifact.getDependencyTrail();
+        if (trail == null || trail.size() < 2) {
+            return artifact.getGroupId() + ":" + artifact.getArtifactId();
+        }
+        // the first element is the project itself, the others are 'group:artifact:type[:classifier]:version'
+        String[] coordinates = trail.get(1).split(":");
+        return coordinates[0] + ":" + coordinates[1];
+    }
+
+    private static boolean isClassFile(String path) {
+        return path.endsWith(".class") && !path.endsWith("module-info.class") && !path.endsWith("package-info.class");
+    }
+
+    private static String className(String path) {
+        if (path.startsWith(VERSIONS_FOLDER)) {
+            path = path.substring(path.indexOf('/', VERSIONS_FOLDER.length()) + 1);
+        }
+        return path.substring(0, path.length() - ".class".length());
+    }
+
+    private static String javaName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private static byte[] readAllBytes(InputStream in, long size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 ? (int) size : 8192);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
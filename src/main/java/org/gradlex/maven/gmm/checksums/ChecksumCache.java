@@ -0,0 +1,117 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm.checksums;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the checksums of recently hashed files for as long as the plugin's class loader lives. In a regular Maven
+ * build, this avoids hashing the same file for multiple variants. In a long-living Maven daemon (mvnd), it
+ * additionally avoids rehashing artifacts that did not change between builds.
+ * <p>
+ * An entry is only used if the file's size, modification time and file key (e.g. the inode) are unchanged.
+ * The least recently used entries are evicted if the cache exceeds {@link #MAX_ENTRIES}.
+ */
+public class ChecksumCache {
+
+    static final int MAX_ENTRIES = 256;
+
+    private static final Map<String, CachedChecksums> CACHE = new LinkedHashMap<String, CachedChecksums>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedChecksums> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public static Checksums checksums(File file) {
+        String key = file.getAbsolutePath();
+        Fingerprint fingerprint = Fingerprint.of(file);
+        synchronized (CACHE) {
+            CachedChecksums entry = CACHE.get(key);
+            if (entry != null && entry.fingerprint.equals(fingerprint)) {
+                return entry.checksums;
+            }
+        }
+
+        Checksums checksums = HashUtil.checksums(file);
+        if (fingerprint.equals(Fingerprint.of(file))) {
+            // only cache the result if the file did not change while it was hashed
+            synchronized (CACHE) {
+                CACHE.put(key, new CachedChecksums(fingerprint, checksums));
+            }
+        }
+        return checksums;
+    }
+
+    private static class CachedChecksums {
+        private final Fingerprint fingerprint;
+        private final Checksums checksums;
+
+        private CachedChecksums(Fingerprint fingerprint, Checksums checksums) {
+            this.fingerprint = fingerprint;
+            this.checksums = checksums;
+        }
+    }
+
+    private static class Fingerprint {
+        private final long size;
+        private final FileTime lastModified;
+        private final Object fileKey;
+
+        private Fingerprint(long size, FileTime lastModified, Object fileKey) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fileKey = fileKey;
+        }
+
+        private static Fingerprint of(File file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                return new Fingerprint(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Fingerprint)) {
+                return false;
+            }
+
+            Fingerprint otherFingerprint = (Fingerprint) other;
+            return size == otherFingerprint.size
+                    && lastModified.equals(otherFingerprint.lastModified)
+                    && Objects.equals(fileKey, otherFingerprint.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified, fileKey);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm.checksums;
+
+/**
+ * The checksums of a file as published in Gradle Module Metadata.
+ */
+public class Checksums {
+
+    private final HashValue sha512;
+    private final HashValue sha256;
+    private final HashValue sha1;
+    private final HashValue md5;
+
+    public Checksums(HashValue sha512, HashValue sha256, HashValue sha1, HashValue md5) {
+        this.sha512 = sha512;
+        this.sha256 = sha256;
+        this.sha1 = sha1;
+        this.md5 = md5;
+    }
+
+    public HashValue getSha512() {
+        return sha512;
+    }
+
+    public HashValue getSha256() {
+        return sha256;
+    }
+
+    public HashValue getSha1() {
+        return sha1;
+    }
+
+    public HashValue getMd5() {
+        return md5;
+    }
+}
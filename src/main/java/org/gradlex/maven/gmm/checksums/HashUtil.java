@@ -56,6 +56,33 @@ public class HashUtil {
         return new HashValue(messageDigest.digest());
     }
 
+    /**
+     * Computes all checksums published in Gradle Module Metadata while reading the file only once.
+     */
+    public static Checksums checksums(File file) {
+        MessageDigest sha512 = createMessageDigest("SHA-512");
+        MessageDigest sha256 = createMessageDigest("SHA-256");
+        MessageDigest sha1 = createMessageDigest("SHA1");
+        MessageDigest md5 = createMessageDigest("md5");
+        try (InputStream instr = new FileInputStream(file)) {
+            byte[] buffer = new byte[65536];
+            while (true) {
+                int nread = instr.read(buffer);
+                if (nread < 0) {
+                    break;
+                }
+                sha512.update(buffer, 0, nread);
+                sha256.update(buffer, 0, nread);
+                sha1.update(buffer, 0, nread);
+                md5.update(buffer, 0, nread);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new Checksums(new HashValue(sha512.digest()), new HashValue(sha256.digest()),
+                new HashValue(sha1.digest()), new HashValue(md5.digest()));
+    }
+
     private static MessageDigest createMessageDigest(String algorithm) {
         try {
             return MessageDigest.getInstance(algorithm);
@@ -0,0 +1,250 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm.test;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.gradlex.maven.gmm.Capability;
+import org.gradlex.maven.gmm.GradleModuleMetadataOptions;
+import org.gradlex.maven.gmm.GradleModuleMetadataWriter;
+import org.gradlex.maven.gmm.checksums.ChecksumCache;
+import org.gradlex.maven.gmm.checksums.Checksums;
+import org.gradlex.maven.gmm.checksums.HashUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the writer and the hashing on synthetic projects that are much larger than real-world ones.
+ * The suite runs with a small heap (see 'scaleTest' in build.gradle.kts), so any code that reads a whole artifact
+ * or keeps the whole model in memory fails with an OutOfMemoryError before the budgets below are even checked.
+ */
+class GMMScaleTest {
+
+    private static final int DEPENDENCIES = 5000;
+    private static final int EXCLUSIONS_PER_DEPENDENCY = 3;
+    private static final int PLATFORM_DEPENDENCIES = 500;
+    private static final int CAPABILITIES = 100;
+
+    private static final long ARTIFACT_SIZE_MB = Long.getLong("gmm.scale.artifactSizeMb", 1024);
+
+    // About twice the measured values, leaving room for slower machines but not for a regression in complexity
+    // (writing takes about 1 s plus 10 s/GB of artifact for hashing it in one pass, allocating less than 4 MB)
+    private static final long WRITE_TIME_BUDGET_MS = 2_000;
+    private static final long WRITE_ALLOCATION_BUDGET_BYTES = 8L * 1024 * 1024;
+    private static final long HASH_TIME_BUDGET_MS_PER_GB = 20_000;
+    private static final long HASH_ALLOCATION_BUDGET_BYTES = 1024 * 1024;
+
+    @TempDir
+    File testFolder;
+
+    File artifactFile;
+
+    @BeforeEach
+    void setup() throws IOException {
+        artifactFile = new File(testFolder, "scale-1.0.jar");
+        try (RandomAccessFile file = new RandomAccessFile(artifactFile, "rw")) {
+            // sparse file: only the marker bytes occupy disk space
+            file.setLength(ARTIFACT_SIZE_MB * 1024 * 1024);
+            file.seek(0);
+            file.write(new byte[]{'P', 'K'});
+            file.seek(file.length() - 2);
+            file.write(new byte[]{'P', 'K'});
+        }
+    }
+
+    @Test
+    void writes_large_module_within_budgets(TestReporter reporter) throws IOException {
+        MavenProject project = syntheticProject();
+        File moduleFile = new File(testFolder, "module.json");
+
+        GradleModuleMetadataOptions options = new GradleModuleMetadataOptions();
+        options.setPlatformDependencies(platformDependencies());
+        options.setCapabilities(capabilities());
+        options.setRemovedDependencies(removedDependencies());
+        options.setCompileOnlyApiDependencies(compileOnlyApiDependencies());
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(moduleFile))) {
+            GradleModuleMetadataWriter.generateTo(project, "3.9.9", options, out);
+        }
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        reporter.publishEntry("module.json", moduleFile.length() + " bytes, "
+                + durationMs + " ms, " + allocated / 1024 / 1024 + " MB allocated");
+
+        // two variants with all dependencies (and their exclusions) written
+        assertThat(moduleFile.length()).isGreaterThan((long) DEPENDENCIES * EXCLUSIONS_PER_DEPENDENCY * 2 * 50);
+        // the artifact is hashed once, although it is referenced by both variants
+        assertThat(durationMs).isLessThan(WRITE_TIME_BUDGET_MS + hashTimeBudgetMs());
+        assertThat(allocated).isLessThan(WRITE_ALLOCATION_BUDGET_BYTES);
+    }
+
+    @Test
+    void hashes_large_artifact_within_budgets(TestReporter reporter) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        Checksums checksums = HashUtil.checksums(artifactFile);
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        reporter.publishEntry("hashing", ARTIFACT_SIZE_MB + " MB, "
+                + durationMs + " ms, " + allocated / 1024 + " KB allocated");
+
+        assertThat(checksums.getSha512().asHexString()).isNotEmpty();
+        assertThat(checksums.getSha256().asHexString()).isNotEmpty();
+        assertThat(checksums.getSha1().asHexString()).isNotEmpty();
+        assertThat(checksums.getMd5().asHexString()).isNotEmpty();
+        assertThat(durationMs).isLessThan(hashTimeBudgetMs());
+        assertThat(allocated).isLessThan(HASH_ALLOCATION_BUDGET_BYTES);
+    }
+
+    @Test
+    void rehashes_large_artifact_only_if_changed() throws IOException {
+        Checksums first = ChecksumCache.checksums(artifactFile);
+
+        long start = System.nanoTime();
+        Checksums unchanged = ChecksumCache.checksums(artifactFile);
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(unchanged).isSameAs(first);
+        assertThat(durationMs).isLessThan(100);
+
+        try (RandomAccessFile file = new RandomAccessFile(artifactFile, "rw")) {
+            file.seek(file.length() / 2);
+            file.write(new byte[]{'P', 'K'});
+        }
+        assertThat(artifactFile.setLastModified(artifactFile.lastModified() + 2000)).isTrue();
+
+        Checksums changed = ChecksumCache.checksums(artifactFile);
+        assertThat(changed.getSha512()).isNotEqualTo(first.getSha512());
+        assertThat(changed.getSha512()).isEqualTo(HashUtil.sha512(artifactFile));
+    }
+
+    /**
+     * Budget for hashing the artifact once with all algorithms.
+     */
+    private static long hashTimeBudgetMs() {
+        return Math.max(1, ARTIFACT_SIZE_MB * HASH_TIME_BUDGET_MS_PER_GB / 1024);
+    }
+
+    private MavenProject syntheticProject() {
+        Model model = new Model();
+        model.setModelVersion("4.0.0");
+        model.setGroupId("org.example.scale");
+        model.setArtifactId("scale");
+        model.setVersion("1.0");
+        model.setPackaging("jar");
+        for (int i = 0; i < DEPENDENCIES; i++) {
+            Dependency dependency = dependency("org.example.scale.lib" + i % 100, "lib-" + i, "1." + i);
+            dependency.setScope(i % 3 == 0 ? "runtime" : "compile");
+            if (i % 50 == 0) {
+                dependency.setOptional(true);
+            }
+            for (int j = 0; j < EXCLUSIONS_PER_DEPENDENCY; j++) {
+                Exclusion exclusion = new Exclusion();
+                exclusion.setGroupId("org.example.excluded" + j);
+                exclusion.setArtifactId("excluded-" + i + "-" + j);
+                dependency.addExclusion(exclusion);
+            }
+            model.addDependency(dependency);
+        }
+
+        MavenProject project = new MavenProject(model);
+        DefaultArtifact artifact = new DefaultArtifact(model.getGroupId(), model.getArtifactId(), model.getVersion(),
+                "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        artifact.setFile(artifactFile);
+        project.setArtifact(artifact);
+        return project;
+    }
+
+    private static List<Dependency> platformDependencies() {
+        List<Dependency> result = new ArrayList<>();
+        for (int i = 0; i < PLATFORM_DEPENDENCIES; i++) {
+            result.add(dependency("org.example.scale.platform", "bom-" + i, "2." + i));
+        }
+        return result;
+    }
+
+    private static List<Capability> capabilities() {
+        List<Capability> result = new ArrayList<>();
+        for (int i = 0; i < CAPABILITIES; i++) {
+            Capability capability = new Capability();
+            capability.setGroupId("org.example.scale.capability");
+            capability.setArtifactId("capability-" + i);
+            result.add(capability);
+        }
+        return result;
+    }
+
+    private static List<Dependency> removedDependencies() {
+        List<Dependency> result = new ArrayList<>();
+        for (int i = 0; i < DEPENDENCIES; i += 100) {
+            result.add(dependency("org.example.scale.lib" + i % 100, "lib-" + i, null));
+        }
+        return result;
+    }
+
+    private static List<Dependency> compileOnlyApiDependencies() {
+        List<Dependency> result = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            result.add(dependency("org.example.scale.annotations", "annotations-" + i, "3." + i));
+        }
+        return result;
+    }
+
+    private static Dependency dependency(String groupId, String artifactId, String version) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(groupId);
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion(version);
+        return dependency;
+    }
+
+    /**
+     * Bytes allocated by all live threads, so that work handed off to other threads is accounted for as well.
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sum = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (allocated > 0) {
+                sum += allocated;
+            }
+        }
+        return sum;
+    }
+}
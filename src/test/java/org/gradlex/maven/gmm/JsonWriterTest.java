@@ -0,0 +1,107 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonWriterTest {
+
+    private static final List<String> SAMPLES = List.of(
+            "plain",
+            "quote \" backslash \\ slash /",
+            "\t\b\n\r\f",
+            "\u0000\u0001\u001f\u007f",
+            "\u2028\u2029",
+            "\u00e9\u0800\u20ac\uffff",
+            "\ud83d\ude00",
+            "a\ud83db",
+            "a\ude00b",
+            "a\ud83d",
+            "\ude00\ud83d");
+
+    @Test
+    void escapes_quotes_backslashes_and_control_characters() throws IOException {
+        assertThat(string("quote \" backslash \\ slash /")).isEqualTo("\"quote \\\" backslash \\\\ slash /\"");
+        assertThat(string("\t\b\n\r\f")).isEqualTo("\"\\t\\b\\n\\r\\f\"");
+        assertThat(string("\u0000\u0001\u001f\u007f")).isEqualTo("\"\\u0000\\u0001\\u001f\u007f\"");
+    }
+
+    @Test
+    void escapes_line_and_paragraph_separators() throws IOException {
+        assertThat(string("\u2028\u2029")).isEqualTo("\"\\u2028\\u2029\"");
+    }
+
+    @Test
+    void encodes_supplementary_characters_as_four_bytes() throws IOException {
+        assertThat(bytes("\ud83d\ude00")).containsExactly('"', 0xf0, 0x9f, 0x98, 0x80, '"');
+    }
+
+    @Test
+    void replaces_unpaired_surrogates() throws IOException {
+        assertThat(string("a\ud83db")).isEqualTo("\"a?b\"");
+        assertThat(string("a\ude00b")).isEqualTo("\"a?b\"");
+        assertThat(string("a\ud83d")).isEqualTo("\"a?\"");
+        assertThat(string("\ude00\ud83d")).isEqualTo("\"??\"");
+    }
+
+    @Test
+    void writes_the_same_bytes_as_gson() throws IOException {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        JsonWriter jsonWriter = new JsonWriter(actual);
+        jsonWriter.beginObject();
+        jsonWriter.name("empty").beginArray().endArray();
+        for (String sample : SAMPLES) {
+            jsonWriter.name(sample).beginArray().value(sample).value(sample.length()).value(true).nullValue().endArray();
+        }
+        jsonWriter.endObject();
+        jsonWriter.flush();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (com.google.gson.stream.JsonWriter gsonWriter = new com.google.gson.stream.JsonWriter(new OutputStreamWriter(expected, UTF_8))) {
+            gsonWriter.setIndent("  ");
+            gsonWriter.setHtmlSafe(false);
+            gsonWriter.beginObject();
+            gsonWriter.name("empty").beginArray().endArray();
+            for (String sample : SAMPLES) {
+                gsonWriter.name(sample).beginArray().value(sample).value(sample.length()).value(true).nullValue().endArray();
+            }
+            gsonWriter.endObject();
+        }
+
+        assertThat(actual.toByteArray()).isEqualTo(expected.toByteArray());
+    }
+
+    private static String string(String value) throws IOException {
+        return new String(bytes(value), UTF_8);
+    }
+
+    private static byte[] bytes(String value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter jsonWriter = new JsonWriter(out);
+        jsonWriter.value(value);
+        jsonWriter.flush();
+        return out.toByteArray();
+    }
+}
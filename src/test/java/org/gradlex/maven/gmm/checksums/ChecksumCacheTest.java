@@ -0,0 +1,92 @@
+/*
+ * Copyright the GradleX team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradlex.maven.gmm.checksums;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.Files.writeString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChecksumCacheTest {
+
+    @TempDir
+    File testFolder;
+
+    @Test
+    void returns_cached_checksums_of_unchanged_file() throws IOException {
+        File file = file("artifact.jar", "content");
+
+        Checksums checksums = ChecksumCache.checksums(file);
+
+        assertThat(ChecksumCache.checksums(file)).isSameAs(checksums);
+    }
+
+    @Test
+    void rehashes_file_if_size_changed() throws IOException {
+        File file = file("artifact.jar", "content");
+        Checksums checksums = ChecksumCache.checksums(file);
+
+        writeString(file.toPath(), "changed content");
+
+        Checksums rehashed = ChecksumCache.checksums(file);
+        assertThat(rehashed).isNotSameAs(checksums);
+        assertThat(rehashed.getSha512()).isEqualTo(HashUtil.sha512(file));
+    }
+
+    @Test
+    void rehashes_file_if_only_modification_time_changed() throws IOException {
+        File file = file("artifact.jar", "content");
+        Checksums checksums = ChecksumCache.checksums(file);
+
+        FileTime lastModified = Files.getLastModifiedTime(file.toPath());
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(lastModified.toMillis() + TimeUnit.SECONDS.toMillis(10)));
+
+        Checksums rehashed = ChecksumCache.checksums(file);
+        assertThat(rehashed).isNotSameAs(checksums);
+        assertThat(rehashed.getSha512()).isEqualTo(checksums.getSha512());
+    }
+
+    @Test
+    void evicts_least_recently_used_checksums() throws IOException {
+        File recentlyUsed = file("recently-used.jar", "recently used");
+        File leastRecentlyUsed = file("least-recently-used.jar", "least recently used");
+        Checksums recentlyUsedChecksums = ChecksumCache.checksums(recentlyUsed);
+        Checksums leastRecentlyUsedChecksums = ChecksumCache.checksums(leastRecentlyUsed);
+
+        // fills the cache with files that are used more recently, independent of what other tests left in it
+        for (int i = 0; i < ChecksumCache.MAX_ENTRIES - 1; i++) {
+            ChecksumCache.checksums(recentlyUsed);
+            ChecksumCache.checksums(file("other-" + i + ".jar", "other " + i));
+        }
+
+        assertThat(ChecksumCache.checksums(recentlyUsed)).isSameAs(recentlyUsedChecksums);
+        assertThat(ChecksumCache.checksums(leastRecentlyUsed)).isNotSameAs(leastRecentlyUsedChecksums);
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = new File(testFolder, name);
+        writeString(file.toPath(), content);
+        return file;
+    }
+}
@@ -31,8 +31,12 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.writeString;
@@ -40,6 +44,16 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 class GMMMavenPluginTest {
 
+    private static final String COMMONS_IO_DEPENDENCY = """
+            <dependencies>
+              <dependency>
+                <groupId>commons-io</groupId>
+                <artifactId>commons-io</artifactId>
+                <version>2.6</version>
+              </dependency>
+            </dependencies>
+        """;
+
     @TempDir
     File testFolder;
 
@@ -63,27 +77,30 @@ class GMMMavenPluginTest {
         gradleConsumerBuild = new File(gradleConsumer, "build.gradle");
     }
 
-    void producerGMMPluginConfiguration(String pluginConfiguration, String packaging) {
-        try {
-            writeString(mavenProducerBuild.toPath(), """
+    ExecResult producerGMMPluginConfiguration(String pluginConfiguration, String packaging) {
+        return producerGMMPluginConfiguration(pluginConfiguration, packaging, "1.0", COMMONS_IO_DEPENDENCY, "");
+    }
+
+    /**
+     * @param projectElements elements of the project besides its coordinates and build, e.g. its dependencies
+     * @param additionalPlugins plugins that run before the gradle-module-metadata-maven-plugin
+     */
+    ExecResult producerGMMPluginConfiguration(String pluginConfiguration, String packaging, String version,
+                                              String projectElements, String additionalPlugins) {
+        return producerPom("""
                 <project>
                   <modelVersion>4.0.0</modelVersion>
                   <groupId>org.gradlex</groupId>
                   <artifactId>gradle-module-metadata-maven-plugin-integration-test</artifactId>
-                  <version>1.0</version>
+                  <version>$version</version>
                   <packaging>$packaging</packaging>
                   <name>Test GMM</name>
     
-                  <dependencies>
-                    <dependency>
-                      <groupId>commons-io</groupId>
-                      <artifactId>commons-io</artifactId>
-                      <version>2.6</version>
-                    </dependency>
-                  </dependencies>
+                  $projectElements
     
                   <build>
                     <plugins>
+                      $additionalPlugins
                       <plugin>
                         <groupId>org.gradlex</groupId>
                         <artifactId>gradle-module-metadata-maven-plugin</artifactId>
@@ -99,14 +116,25 @@ class GMMMavenPluginTest {
                     </plugins>
                   </build>
                 </project>
-            """.replace("$pluginConfiguration", pluginConfiguration).replace("$packaging", packaging));
+            """.replace("$pluginConfiguration", pluginConfiguration).replace("$packaging", packaging)
+                .replace("$version", version).replace("$projectElements", projectElements)
+                .replace("$additionalPlugins", additionalPlugins));
+    }
+
+    ExecResult producerPom(String pom) {
+        try {
+            writeString(mavenProducerBuild.toPath(), pom);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        installProducerLocally();
+        return installProducerLocally();
     }
 
     void consumerDependencies(String dependencyDeclarations) {
+        consumerDependencies(dependencyDeclarations, "");
+    }
+
+    void consumerDependencies(String dependencyDeclarations, String additionalConfiguration) {
         try {
             writeString(gradleConsumerBuild.toPath(), """
                 plugins {
@@ -124,7 +152,14 @@ class GMMMavenPluginTest {
                         configurations.compileClasspath.files.forEach { println(it.name) }
                     }
                 }
-            """.replace("$dependencyDeclarations", dependencyDeclarations));
+                tasks.register("resolveRuntime") {
+                    doLast {
+                        configurations.runtimeClasspath.files.forEach { println(it.name) }
+                    }
+                }
+                $additionalConfiguration
+            """.replace("$dependencyDeclarations", dependencyDeclarations)
+                    .replace("$additionalConfiguration", additionalConfiguration));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -201,6 +236,360 @@ class GMMMavenPluginTest {
         moduleJsonNotGenerated();
     }
 
+    @Test
+    void platform_metadata_is_published_for_BOMs_if_requested() {
+        producerGMMPluginConfiguration("""
+            <configuration>
+              <publishPlatform>true</publishPlatform>
+            </configuration>
+        """, "pom");
+
+        consumerDependencies("""
+            implementation(platform("org.gradlex:gradle-module-metadata-maven-plugin-integration-test:1.0"))
+        """);
+
+        moduleJsonGenerated();
+        assertThat(resolve()).containsExactly("commons-io-2.6.jar");
+    }
+
+    @Test
+    void explain_mode_writes_module_without_checksums() {
+        ExecResult result = producerGMMPluginConfiguration("""
+            <configuration>
+              <explain>true</explain>
+            </configuration>
+        """, "jar", "1.0", """
+            <dependencies>
+              <dependency>
+                <groupId>commons-io</groupId>
+                <artifactId>commons-io</artifactId>
+                <version>2.6</version>
+              </dependency>
+              <dependency>
+                <groupId>org.apache.commons</groupId>
+                <artifactId>commons-lang3</artifactId>
+                <version>3.12.0</version>
+                <scope>runtime</scope>
+              </dependency>
+            </dependencies>
+        """, "");
+
+        moduleJsonGenerated();
+        assertThat(new File(mavenProducerBuild.getParentFile(), "target/publications/maven/module.json"))
+                .content().contains("\"commons-io\"").doesNotContain("sha512");
+        assertThat(result.output().lines().toList()).containsSubsequence(
+                "[INFO] apiElements (library)",
+                "[INFO]   + commons-io:commons-io:2.6 (scope 'compile')",
+                "[INFO]   - org.apache.commons:commons-lang3:3.12.0 (scope 'runtime')",
+                "[INFO] runtimeElements (library)",
+                "[INFO]   + commons-io:commons-io:2.6 (scope 'compile')",
+                "[INFO]   + org.apache.commons:commons-lang3:3.12.0 (scope 'runtime')");
+    }
+
+    @Test
+    void dependencies_not_exposed_in_the_API_are_runtime_only_if_analyzed() {
+        producerGMMPluginConfiguration("""
+            <configuration>
+              <analyzeApiDependencies>true</analyzeApiDependencies>
+            </configuration>
+        """, "jar");
+
+        consumerDependencies("""
+            implementation("org.gradlex:gradle-module-metadata-maven-plugin-integration-test:1.0")
+        """);
+
+        moduleJsonGenerated();
+        // the producer has no classes, so it cannot expose commons-io
+        assertThat(resolve()).containsExactly(
+                "gradle-module-metadata-maven-plugin-integration-test-1.0.jar");
+        assertThat(resolve("resolveRuntime")).containsExactly(
+                "gradle-module-metadata-maven-plugin-integration-test-1.0.jar", "commons-io-2.6.jar");
+    }
+
+    @Test
+    void resolved_versions_are_preferred_for_version_ranges_if_requested() {
+        producerWithVersionRange("<preferResolvedVersions>true</preferResolvedVersions>");
+
+        consumerDependencies("""
+            implementation("org.gradlex:gradle-module-metadata-maven-plugin-integration-test:1.0")
+        """);
+
+        assertThat(new File(mavenProducerBuild.getParentFile(), "target/publications/maven/module.json"))
+                .content().contains("\"requires\": \"[2.5,2.7)\"").contains("\"prefers\": \"2.6\"");
+        assertThat(resolve()).containsExactly(
+                "gradle-module-metadata-maven-plugin-integration-test-1.0.jar", "commons-io-2.6.jar");
+    }
+
+    @Test
+    void resolved_versions_are_strictly_required_for_version_ranges_if_requested() {
+        producerWithVersionRange("<strictlyResolvedVersions>true</strictlyResolvedVersions>");
+
+        assertThat(new File(mavenProducerBuild.getParentFile(), "target/publications/maven/module.json"))
+                .content().contains("\"strictly\": \"2.6\"").doesNotContain("[2.5,2.7)");
+    }
+
+    void producerWithVersionRange(String pluginConfiguration) {
+        producerGMMPluginConfiguration("<configuration>" + pluginConfiguration + "</configuration>", "jar", "1.0", """
+            <dependencies>
+              <dependency>
+                <groupId>commons-io</groupId>
+                <artifactId>commons-io</artifactId>
+                <version>[2.5,2.7)</version>
+              </dependency>
+            </dependencies>
+        """, "");
+    }
+
+    @Test
+    void shaded_variant_is_selected_by_capability_without_transitive_dependencies() {
+        producerGMMPluginConfiguration("""
+            <configuration>
+              <shadedVariant>
+                <classifier>all</classifier>
+              </shadedVariant>
+            </configuration>
+        """, "jar", "1.0", COMMONS_IO_DEPENDENCY, """
+            <plugin>
+              <groupId>org.apache.maven.plugins</groupId>
+              <artifactId>maven-shade-plugin</artifactId>
+              <version>3.6.0</version>
+              <executions>
+                <execution>
+                  <phase>package</phase>
+                  <goals>
+                    <goal>shade</goal>
+                  </goals>
+                  <configuration>
+                    <shadedArtifactAttached>true</shadedArtifactAttached>
+                    <shadedClassifierName>all</shadedClassifierName>
+                    <createDependencyReducedPom>false</createDependencyReducedPom>
+                  </configuration>
+                </execution>
+              </executions>
+            </plugin>
+        """);
+
+        consumerDependencies("""
+            implementation("org.gradlex:gradle-module-metadata-maven-plugin-integration-test:1.0") {
+                capabilities {
+                    requireCapability("org.gradlex:gradle-module-metadata-maven-plugin-integration-test-all")
+                }
+            }
+        """);
+
+        moduleJsonGenerated();
+        assertThat(resolve("resolveRuntime")).containsExactly(
+                "gradle-module-metadata-maven-plugin-integration-test-1.0-all.jar");
+    }
+
+    @Test
+    void shaded_variant_requires_classifier() {
+        ExecResult result = producerGMMPluginConfiguration("""
+            <configuration>
+              <explain>true</explain>
+              <shadedVariant>
+                <dependencies>
+                  <dependency>
+                    <groupId>commons-io</groupId>
+                    <artifactId>commons-io</artifactId>
+                    <version>2.6</version>
+                  </dependency>
+                </dependencies>
+              </shadedVariant>
+            </configuration>
+        """, "jar");
+
+        assertThat(result.exitCode()).isNotZero();
+        assertThat(result.output()).contains("Missing 'classifier' in <shadedVariant> configuration");
+        moduleJsonNotGenerated();
+    }
+
+    @Test
+    void relocated_module_points_to_new_coordinates() {
+        producerGMMPluginConfiguration("", "pom", "2.6", """
+            <distributionManagement>
+              <relocation>
+                <groupId>commons-io</groupId>
+                <artifactId>commons-io</artifactId>
+              </relocation>
+            </distributionManagement>
+        """, "");
+
+        consumerDependencies("""
+            implementation("org.gradlex:gradle-module-metadata-maven-plugin-integration-test:2.6")
+        """);
+
+        moduleJsonGenerated();
+        assertThat(resolve()).containsExactly("commons-io-2.6.jar");
+    }
+
+    @Test
+    void native_variant_is_selected_by_operating_system_and_architecture() {
+        producerGMMPluginConfiguration("""
+            <configuration>
+              <nativeVariants>
+                <nativeVariant>
+                  <classifier>linux-x86_64</classifier>
+                  <operatingSystem>linux</operatingSystem>
+                  <architecture>x86-64</architecture>
+                </nativeVariant>
+                <nativeVariant>
+                  <classifier>osx-aarch_64</classifier>
+                  <operatingSystem>macos</operatingSystem>
+                  <architecture>aarch64</architecture>
+                </nativeVariant>
+              </nativeVariants>
+            </configuration>
+        """, "jar", "1.0", "", """
+            <plugin>
+              <groupId>org.apache.maven.plugins</groupId>
+              <artifactId>maven-jar-plugin</artifactId>
+              <executions>
+                <execution>
+                  <id>linux-x86_64</id>
+                  <goals>
+                    <goal>jar</goal>
+                  </goals>
+                  <configuration>
+                    <classifier>linux-x86_64</classifier>
+                  </configuration>
+                </execution>
+                <execution>
+                  <id>osx-aarch_64</id>
+                  <goals>
+                    <goal>jar</goal>
+                  </goals>
+                  <configuration>
+                    <classifier>osx-aarch_64</classifier>
+                  </configuration>
+                </execution>
+              </executions>
+            </plugin>
+        """);
+
+        consumerDependencies("""
+            implementation("org.gradlex:gradle-module-metadata-maven-plugin-integration-test:1.0")
+        """, """
+            configurations.runtimeClasspath.attributes {
+                attribute(OperatingSystemFamily.OPERATING_SYSTEM_ATTRIBUTE, objects.named(OperatingSystemFamily, "macos"))
+                attribute(MachineArchitecture.ARCHITECTURE_ATTRIBUTE, objects.named(MachineArchitecture, "aarch64"))
+            }
+        """);
+
+        moduleJsonGenerated();
+        assertThat(resolve()).containsExactly(
+                "gradle-module-metadata-maven-plugin-integration-test-1.0.jar");
+        assertThat(resolve("resolveRuntime")).containsExactly(
+                "gradle-module-metadata-maven-plugin-integration-test-1.0.jar",
+                "gradle-module-metadata-maven-plugin-integration-test-1.0-osx-aarch_64.jar");
+    }
+
+    @Test
+    void native_variant_requires_operating_system_and_architecture() {
+        // explain mode does not require the classifier jar to be attached
+        ExecResult result = producerGMMPluginConfiguration("""
+            <configuration>
+              <explain>true</explain>
+              <nativeVariants>
+                <nativeVariant>
+                  <classifier>linux-x86_64</classifier>
+                  <operatingSystem>linux</operatingSystem>
+                </nativeVariant>
+              </nativeVariants>
+            </configuration>
+        """, "jar");
+
+        assertThat(result.exitCode()).isNotZero();
+        assertThat(result.output()).contains("Missing 'architecture' in <nativeVariant> configuration");
+        moduleJsonNotGenerated();
+    }
+
+    @Test
+    void reactor_modules_are_aligned_if_requested() throws IOException {
+        producerReactor("1.0", "module-a", "module-b");
+        producerReactor("2.0", "module-a", "module-b");
+
+        consumerDependencies("""
+            implementation("org.gradlex:module-a:2.0")
+            implementation("org.gradlex:module-b:1.0")
+        """);
+
+        assertThat(resolve()).containsExactly("module-a-2.0.jar", "module-b-2.0.jar");
+    }
+
+    void producerReactor(String version, String... modules) throws IOException {
+        StringBuilder moduleList = new StringBuilder();
+        for (String module : modules) {
+            moduleList.append("<module>").append(module).append("</module>");
+            File modulePom = new File(mavenProducerBuild.getParentFile(), module + "/pom.xml");
+            createDirectories(modulePom.getParentFile().toPath());
+            writeString(modulePom.toPath(), """
+                <project>
+                  <modelVersion>4.0.0</modelVersion>
+                  <parent>
+                    <groupId>org.gradlex</groupId>
+                    <artifactId>gradle-module-metadata-maven-plugin-integration-test</artifactId>
+                    <version>$version</version>
+                  </parent>
+                  <artifactId>$module</artifactId>
+                </project>
+            """.replace("$version", version).replace("$module", module));
+        }
+        producerGMMPluginConfiguration("""
+            <configuration>
+              <alignWithReactor>true</alignWithReactor>
+            </configuration>
+        """, "pom", version, "<modules>" + moduleList + "</modules>", "");
+    }
+
+    @Test
+    void watch_updates_local_repository_when_artifact_is_rebuilt() throws IOException, InterruptedException {
+        File producer = mavenProducerBuild.getParentFile();
+        File resource = new File(producer, "src/main/resources/build.txt");
+        createDirectories(resource.getParentFile().toPath());
+        writeString(resource.toPath(), "install");
+        producerGMMPluginConfiguration("", "jar", "1.0-SNAPSHOT", COMMONS_IO_DEPENDENCY, "");
+
+        String fileName = "gradle-module-metadata-maven-plugin-integration-test-1.0-SNAPSHOT";
+        File localRepositoryFolder = new File(System.getProperty("user.home"),
+                ".m2/repository/org/gradlex/gradle-module-metadata-maven-plugin-integration-test/1.0-SNAPSHOT");
+        File installedJar = new File(localRepositoryFolder, fileName + ".jar");
+        File installedModule = new File(localRepositoryFolder, fileName + ".module");
+        File builtJar = new File(producer, "target/" + fileName + ".jar");
+        File builtModule = new File(producer, "target/publications/maven/module.json");
+
+        File watchLog = new File(testFolder, "watch.log");
+        Process watch = new ProcessBuilder("mvn", "install", "gradle-module-metadata:watch").directory(producer)
+                .redirectErrorStream(true).redirectOutput(watchLog).start();
+        try {
+            await(() -> Files.readString(watchLog.toPath()).contains("Watching "), watch, watchLog);
+
+            // rebuild without deleting the target folder
+            byte[] moduleBefore = Files.readAllBytes(installedModule.toPath());
+            writeString(resource.toPath(), "package");
+            assertThat(exec("mvn package", producer).exitCode()).isZero();
+            await(() -> sameContent(installedJar, builtJar) && sameContent(installedModule, builtModule), watch, watchLog);
+            assertThat(Files.readAllBytes(installedModule.toPath())).isNotEqualTo(moduleBefore);
+
+            // rebuild after the watched target folder was deleted
+            moduleBefore = Files.readAllBytes(installedModule.toPath());
+            writeString(resource.toPath(), "clean package");
+            assertThat(exec("mvn clean package", producer).exitCode()).isZero();
+            await(() -> sameContent(installedJar, builtJar) && sameContent(installedModule, builtModule), watch, watchLog);
+            assertThat(Files.readAllBytes(installedModule.toPath())).isNotEqualTo(moduleBefore);
+        } finally {
+            watch.destroy();
+            if (!watch.waitFor(10, TimeUnit.SECONDS)) {
+                watch.destroyForcibly();
+            }
+        }
+    }
+
+    @Test
+    void testBomPlatform() {
+        assertExpectedGMM("bom-platform");
+    }
+
     @Test
     void testCapabilities() {
         assertExpectedGMM("capabilities");
@@ -236,6 +625,11 @@ class GMMMavenPluginTest {
         assertExpectedGMM("platform-dependencies");
     }
 
+    @Test
+    void testRelocation() {
+        assertExpectedGMM("relocation");
+    }
+
     @Test
     void testSnapshotStatusAttribute() {
         assertExpectedGMM("snapshot-status-attribute");
@@ -246,11 +640,37 @@ class GMMMavenPluginTest {
         assertExpectedGMM("variant-dependencies");
     }
 
+    @Test
+    void testApiDependencies() {
+        // checksums of the jar depend on the JDK compiling the classes, so only the dependencies are compared
+        packageFixture("api-dependencies");
+
+        assertThat(variantDependencies("apiElements")).containsExactly(
+                "commons-io:commons-io",
+                "org.slf4j:slf4j-api",
+                "org.apache.commons:commons-lang3",
+                "commons-codec:commons-codec",
+                "com.google.guava:guava",
+                "org.jspecify:jspecify");
+        assertThat(variantDependencies("runtimeElements")).containsExactly(
+                "commons-io:commons-io",
+                "org.apache.commons:commons-text",
+                "org.slf4j:slf4j-api",
+                "org.apache.commons:commons-lang3",
+                "commons-codec:commons-codec",
+                "com.google.guava:guava",
+                "org.jspecify:jspecify");
+    }
+
     List<String> resolve() {
+        return resolve("resolve");
+    }
+
+    List<String> resolve(String task) {
         BuildResult buildResult = GradleRunner.create()
                 .forwardOutput()
                 .withProjectDir(gradleConsumerBuild.getParentFile())
-                .withArguments("resolve", "-q").build();
+                .withArguments(task, "-q").build();
         return Arrays.asList(buildResult.getOutput().trim().split("\n"));
     }
 
@@ -259,14 +679,35 @@ class GMMMavenPluginTest {
 
     }
 
-    private void installProducerLocally() {
-        exec("mvn clean install -DskipTests -Dgpg.skip", mavenProducerBuild.getParentFile());
+    private ExecResult installProducerLocally() {
+        return exec("mvn clean install -DskipTests -Dgpg.skip", mavenProducerBuild.getParentFile());
     }
 
     private void packageProducer() {
         exec("mvn clean package", mavenProducerBuild.getParentFile());
     }
 
+    /**
+     * Waits until the condition holds while the watch goal keeps running.
+     */
+    private static void await(Condition condition, Process watch, File watchLog) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!condition.holds()) {
+            if (!watch.isAlive() || System.nanoTime() > deadline) {
+                throw new AssertionError("Watch goal did not update the local repository:\n" + Files.readString(watchLog.toPath()));
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private static boolean sameContent(File file, File other) throws IOException {
+        return file.isFile() && other.isFile() && Files.mismatch(file.toPath(), other.toPath()) == -1;
+    }
+
+    private interface Condition {
+        boolean holds() throws IOException;
+    }
+
     private void moduleJsonGenerated() {
         assertThat(new File(mavenProducerBuild.getParentFile(), "target/publications/maven/module.json")).exists();
     }
@@ -275,11 +716,10 @@ class GMMMavenPluginTest {
         assertThat(new File(mavenProducerBuild.getParentFile(), "target/publications/maven/module.json")).doesNotExist();
     }
 
-    private void assertExpectedGMM(String name) {
+    private void packageFixture(String name) {
         File testPom = new File("src/test/resources/" + name + "/pom.xml");
         File testPomParent = new File("src/test/resources/" + name + "/parent/pom.xml");
-        File gmmExpected = new File("src/test/resources/" + name + "/expected-module.json");
-        assertThat(gmmExpected).exists();
+        Path testSources = new File("src/test/resources/" + name + "/src").toPath();
 
         try {
             Files.copy(testPom.toPath(), mavenProducerBuild.toPath());
@@ -288,30 +728,75 @@ class GMMMavenPluginTest {
                 Files.createDirectories(mavenProducerParent.getParentFile().toPath());
                 Files.copy(testPomParent.toPath(), mavenProducerParent.toPath());
             }
+            if (Files.isDirectory(testSources)) {
+                Path producerSources = new File(mavenProducerBuild.getParentFile(), "src").toPath();
+                try (Stream<Path> files = Files.walk(testSources)) {
+                    for (Path file : files.toList()) {
+                        Files.copy(file, producerSources.resolve(testSources.relativize(file).toString()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
 
-            packageProducer();
+        packageProducer();
+    }
 
+    private List<String> variantDependencies(String variantName) {
+        File gmm = new File(mavenProducerBuild.getParentFile(), "target/publications/maven/module.json");
+        try (FileReader reader = new FileReader(gmm)) {
+            for (JsonElement variant : JsonParser.parseReader(reader).getAsJsonObject().getAsJsonArray("variants")) {
+                if (variantName.equals(variant.getAsJsonObject().get("name").getAsString())) {
+                    List<String> result = new ArrayList<>();
+                    for (JsonElement dependency : variant.getAsJsonObject().getAsJsonArray("dependencies")) {
+                        result.add(dependency.getAsJsonObject().get("group").getAsString() + ":"
+                                + dependency.getAsJsonObject().get("module").getAsString());
+                    }
+                    return result;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        throw new AssertionError("No variant " + variantName + " in " + gmm);
+    }
+
+    private void assertExpectedGMM(String name) {
+        File gmmExpected = new File("src/test/resources/" + name + "/expected-module.json");
+        assertThat(gmmExpected).exists();
+
+        packageFixture(name);
+
+        try {
             File gmmActual = new File(mavenProducerBuild.getParentFile(), "target/publications/maven/module.json");
             assertThat(gmmActual).exists();
 
             JsonElement expected = JsonParser.parseReader(new FileReader(gmmExpected));
             JsonElement actual = JsonParser.parseReader(new FileReader(gmmActual));
             assertThat(expected).isEqualTo(actual);
+            // same content is not enough, formatting and escaping must not change either
+            assertThat(gmmActual).hasSameBinaryContentAs(gmmExpected);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private static void exec(String command, File workDir) {
+    private static ExecResult exec(String command, File workDir) {
         try {
-            Process proc = Runtime.getRuntime().exec(command, null, workDir);
+            Process proc = new ProcessBuilder(command.split(" ")).directory(workDir).redirectErrorStream(true).start();
             BufferedReader stdInput = new BufferedReader(new InputStreamReader(proc.getInputStream()));
+            StringBuilder output = new StringBuilder();
             String s;
             while ((s = stdInput.readLine()) != null) {
                 System.out.println(s);
+                output.append(s).append('\n');
             }
-        } catch (IOException e) {
+            return new ExecResult(proc.waitFor(), output.toString());
+        } catch (IOException | InterruptedException e) {
             throw new RuntimeException(e);
         }
     }
+
+    record ExecResult(int exitCode, String output) {}
 }
@@ -0,0 +1,38 @@
+package org.testing.example;
+
+import com.google.common.reflect.TypeToken;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.lang3.exception.ContextedException;
+import org.apache.commons.text.StringSubstitutor;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+@Converter(Base64.class)
+public class Api extends ProxyInputStream {
+
+    private final StringSubstitutor substitutor = new StringSubstitutor();
+
+    public Api(InputStream in) {
+        super(in);
+    }
+
+    public List<Logger> loggers() {
+        return Collections.emptyList();
+    }
+
+    public void validate() throws ContextedException {
+    }
+
+    public TypeToken<String>.TypeSet types() {
+        return TypeToken.of(String.class).getTypes();
+    }
+
+    public @Nullable String name() {
+        return Internal.replace(substitutor, "name");
+    }
+}
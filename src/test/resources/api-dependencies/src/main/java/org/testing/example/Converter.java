@@ -0,0 +1,5 @@
+package org.testing.example;
+
+public @interface Converter {
+    Class<?> value();
+}
@@ -0,0 +1,10 @@
+package org.testing.example;
+
+import org.apache.commons.text.StringSubstitutor;
+
+class Internal {
+
+    public static String replace(StringSubstitutor substitutor, String value) {
+        return substitutor.replace(value);
+    }
+}